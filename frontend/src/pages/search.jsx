@@ -1,4 +1,4 @@
-import { useState, useCallback } from "react";
+import { useState, useCallback, useEffect } from "react";
 import { apiGet, apiPost } from "../api.js";
 
 function StockBadge({ status }) {
@@ -16,6 +16,30 @@ export default function Search() {
   const [error, setError] = useState(null);
   const [stats, setStats] = useState(null);
   const [syncing, setSyncing] = useState(false);
+  const [suggestions, setSuggestions] = useState([]);
+
+  // Autocompletado: espera a que el usuario deje de escribir y cancela la peticion anterior
+  useEffect(() => {
+    const prefix = query.trim();
+    if (!prefix) {
+      setSuggestions([]);
+      return undefined;
+    }
+    const controller = new AbortController();
+    const timer = setTimeout(async () => {
+      try {
+        const params = new URLSearchParams({ prefix });
+        const data = await apiGet(`/api/catalog/search/suggest?${params}`, { signal: controller.signal });
+        setSuggestions(data);
+      } catch (err) {
+        if (err.name !== "AbortError") setSuggestions([]);
+      }
+    }, 150);
+    return () => {
+      clearTimeout(timer);
+      controller.abort();
+    };
+  }, [query]);
 
   const handleSearch = useCallback(async () => {
     setLoading(true);
@@ -91,10 +115,17 @@ export default function Search() {
               placeholder="Buscar por nombre..." 
               style={{ flex: 1 }}
               aria-label="Buscar"
+              list="search-suggestions"
+              autoComplete="off"
               value={query}
               onChange={(e) => setQuery(e.target.value)}
               onKeyPress={handleKeyPress}
             />
+            <datalist id="search-suggestions">
+              {suggestions.map((name) => (
+                <option key={name} value={name} />
+              ))}
+            </datalist>
             <button 
               className="btn primary" 
               type="button" 
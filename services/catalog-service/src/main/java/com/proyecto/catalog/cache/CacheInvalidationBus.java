@@ -0,0 +1,56 @@
+package com.proyecto.catalog.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Difunde invalidaciones del cache L1 entre instancias usando Redis pub/sub.
+ *
+ * Formato del mensaje: {@code operacion|origen|cache|key}, donde la operacion
+ * es {@code E} (evict de una key) o {@code C} (clear del cache completo).
+ * Cada instancia ignora los mensajes que ella misma publico.
+ */
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(EVICT + "|" + instanceId + "|" + cacheName + "|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(CLEAR + "|" + instanceId + "|" + cacheName + "|");
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // El TTL del L1 acota la inconsistencia si Redis no esta disponible
+            log.warn("No se pudo publicar invalidacion de cache '{}': {}", message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.proyecto.catalog.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Parametros de carga ante fallos de cache: lock distribuido opcional y
+ * refresco anticipado probabilistico de keys calientes.
+ */
+public class CacheLoadSettings {
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean distributedLock;
+    private final Duration lockTtl;
+    private final boolean refreshAhead;
+    private final double refreshAheadBeta;
+    private final Executor refreshExecutor;
+
+    public CacheLoadSettings(StringRedisTemplate redisTemplate,
+                             boolean distributedLock,
+                             Duration lockTtl,
+                             boolean refreshAhead,
+                             double refreshAheadBeta,
+                             Executor refreshExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.distributedLock = distributedLock;
+        this.lockTtl = lockTtl;
+        this.refreshAhead = refreshAhead;
+        this.refreshAheadBeta = refreshAheadBeta;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public StringRedisTemplate getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    public boolean isDistributedLock() {
+        return distributedLock;
+    }
+
+    public Duration getLockTtl() {
+        return lockTtl;
+    }
+
+    public boolean isRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public double getRefreshAheadBeta() {
+        return refreshAheadBeta;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+}
@@ -0,0 +1,247 @@
+package com.proyecto.catalog.cache;
+
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.service.ProductPageIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codec binario compacto para los valores del cache de productos.
+ *
+ * Cabecera de 4 bytes: {@code MAGIC | version de esquema | flags | tipo}.
+ * Los campos de cada tipo se escriben en orden fijo precedidos por una
+ * mascara de presencia, sin nombres de clase ni de atributos.
+ *
+ * Compatibilidad en despliegues graduales:
+ * - Los valores binarios se guardan bajo el prefijo "catalog:v2:" (ver
+ *   RedisConfig), asi que las instancias que solo leen JSON no los ven.
+ * - Los payloads JSON escritos por el serializador anterior se siguen leyendo.
+ * - Una version de esquema desconocida se lee como {@code null}, es decir,
+ *   como un fallo de cache y no como un error.
+ * - Los tipos no soportados se guardan como JSON dentro del sobre binario.
+ *
+ * Los payloads mayores al umbral configurado se comprimen con Deflate.
+ */
+public class ProductCacheCodec implements RedisSerializer<Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheCodec.class);
+
+    static final byte MAGIC = (byte) 0xCA;
+    /** v1: id, name, price, stock. v2: agrega version. v3: agrega sku. */
+    static final byte SCHEMA_VERSION = 3;
+
+    private static final byte FLAG_DEFLATE = 0x01;
+
+    private static final byte TYPE_PRODUCT = 1;
+    private static final byte TYPE_PRODUCT_LIST = 2;
+    private static final byte TYPE_PAGE_INDEX = 3;
+    private static final byte TYPE_JSON = 0x7F;
+
+    private static final int HEADER_SIZE = 4;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold tamano en bytes a partir del cual se comprime; 0 o negativo desactiva
+     */
+    public ProductCacheCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte type = writeBody(value, out);
+            out.flush();
+            byte[] body = bytes.toByteArray();
+
+            byte flags = 0;
+            if (compressionThreshold > 0 && body.length >= compressionThreshold) {
+                body = deflate(body);
+                flags |= FLAG_DEFLATE;
+            }
+
+            byte[] payload = new byte[HEADER_SIZE + body.length];
+            payload[0] = MAGIC;
+            payload[1] = SCHEMA_VERSION;
+            payload[2] = flags;
+            payload[3] = type;
+            System.arraycopy(body, 0, payload, HEADER_SIZE, body.length);
+            return payload;
+        } catch (IOException e) {
+            throw new SerializationException("No se pudo serializar el valor de cache", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            // Valor escrito por GenericJackson2JsonRedisSerializer antes de este codec
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] > SCHEMA_VERSION) {
+            log.debug("Version de esquema de cache desconocida: {}", bytes.length > 1 ? bytes[1] : -1);
+            return null;
+        }
+
+        byte version = bytes[1];
+        byte flags = bytes[2];
+        byte type = bytes[3];
+        try {
+            InputStream body = new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+            if ((flags & FLAG_DEFLATE) != 0) {
+                body = new InflaterInputStream(body);
+            }
+            DataInputStream in = new DataInputStream(body);
+            return switch (type) {
+                case TYPE_PRODUCT -> readProduct(in, version);
+                case TYPE_PRODUCT_LIST -> readProductList(in, version);
+                case TYPE_PAGE_INDEX -> readPageIndex(in);
+                case TYPE_JSON -> jsonSerializer.deserialize(in.readAllBytes());
+                default -> null;
+            };
+        } catch (IOException e) {
+            throw new SerializationException("No se pudo deserializar el valor de cache", e);
+        }
+    }
+
+    private byte writeBody(Object value, DataOutputStream out) throws IOException {
+        if (value instanceof Product product) {
+            writeProduct(product, out);
+            return TYPE_PRODUCT;
+        }
+        if (value instanceof ProductPageIndex index) {
+            writePageIndex(index, out);
+            return TYPE_PAGE_INDEX;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(Product.class::isInstance)) {
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeProduct((Product) item, out);
+            }
+            return TYPE_PRODUCT_LIST;
+        }
+        out.write(jsonSerializer.serialize(value));
+        return TYPE_JSON;
+    }
+
+    // ========================================
+    // Product
+    // ========================================
+
+    private static void writeProduct(Product product, DataOutputStream out) throws IOException {
+        int mask = (product.getId() != null ? 1 : 0)
+            | (product.getName() != null ? 1 << 1 : 0)
+            | (product.getPrice() != null ? 1 << 2 : 0)
+            | (product.getStock() != null ? 1 << 3 : 0)
+            | (product.getVersion() != null ? 1 << 4 : 0)
+            | (product.getSku() != null ? 1 << 5 : 0);
+        out.writeByte(mask);
+        if (product.getId() != null) out.writeLong(product.getId());
+        if (product.getName() != null) writeString(product.getName(), out);
+        if (product.getPrice() != null) out.writeDouble(product.getPrice());
+        if (product.getStock() != null) out.writeInt(product.getStock());
+        if (product.getVersion() != null) out.writeLong(product.getVersion());
+        if (product.getSku() != null) writeString(product.getSku(), out);
+    }
+
+    private static Product readProduct(DataInputStream in, byte version) throws IOException {
+        int mask = in.readUnsignedByte();
+        Product product = new Product();
+        if ((mask & 1) != 0) product.setId(in.readLong());
+        if ((mask & 1 << 1) != 0) product.setName(readString(in));
+        if ((mask & 1 << 2) != 0) product.setPrice(in.readDouble());
+        if ((mask & 1 << 3) != 0) product.setStock(in.readInt());
+        // Los payloads anteriores no tienen los campos nuevos: quedan null
+        if (version >= 2 && (mask & 1 << 4) != 0) product.setVersion(in.readLong());
+        if (version >= 3 && (mask & 1 << 5) != 0) product.setSku(readString(in));
+        return product;
+    }
+
+    private static List<Product> readProductList(DataInputStream in, byte version) throws IOException {
+        int size = in.readInt();
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(readProduct(in, version));
+        }
+        return products;
+    }
+
+    // ========================================
+    // ProductPageIndex
+    // ========================================
+
+    private static void writePageIndex(ProductPageIndex index, DataOutputStream out) throws IOException {
+        List<Long> ids = index.getIds() != null ? index.getIds() : List.of();
+        out.writeInt(ids.size());
+        for (Long id : ids) {
+            out.writeLong(id);
+        }
+        out.writeBoolean(index.getNextCursor() != null);
+        if (index.getNextCursor() != null) {
+            writeString(index.getNextCursor(), out);
+        }
+    }
+
+    private static ProductPageIndex readPageIndex(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(in.readLong());
+        }
+        String nextCursor = in.readBoolean() ? readString(in) : null;
+        return new ProductPageIndex(ids, nextCursor);
+    }
+
+    // ========================================
+    // Utilidades
+    // ========================================
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(body);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,488 @@
+package com.proyecto.catalog.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de dos niveles: L1 en memoria (Caffeine) delante de L2 en Redis.
+ *
+ * Las lecturas se resuelven primero en el heap de la instancia; solo los
+ * fallos de L1 viajan a Redis. Las escrituras e invalidaciones se aplican en
+ * ambos niveles y se difunden al resto de instancias para que descarten su
+ * copia local. Los valores del L1 se comparten por referencia, por lo que no
+ * deben modificarse despues de leerlos.
+ *
+ * En las lecturas con loader ({@code @Cacheable(sync = true)}):
+ * - Solo un hilo por key e instancia ejecuta el loader; el resto espera su resultado.
+ * - Opcionalmente un lock corto en Redis coordina la carga entre instancias.
+ * - Las keys leidas de Redis cerca de su expiracion se recargan en segundo plano
+ *   con probabilidad creciente (refresco anticipado tipo XFetch).
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private static final Duration LOCK_POLL_INTERVAL = Duration.ofMillis(25);
+
+    private static final RedisScript<Long> RELEASE_LOCK = RedisScript.of(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final RedisCache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadSettings loadSettings;
+    private final Duration localTtl;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Set<String> inFlightRefreshes = ConcurrentHashMap.newKeySet();
+    /** Promedio movil del tiempo de carga, en milisegundos. */
+    private volatile double averageLoadMillis;
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter coalescedLoads;
+    private final Counter refreshesAhead;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                         Duration localTtl,
+                         RedisCache remote,
+                         CacheInvalidationBus invalidationBus,
+                         CacheLoadSettings loadSettings,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.localTtl = localTtl;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.loadSettings = loadSettings;
+
+        // L1: cache.gets/cache.evictions/cache.size con tier=l1
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, "tier", "l1");
+        // L2: mismos nombres y tags para poder comparar ambos niveles
+        this.remoteHits = Counter.builder("cache.gets")
+            .tags("cache", name, "tier", "l2", "result", "hit")
+            .description("Lecturas resueltas por Redis")
+            .register(meterRegistry);
+        this.remoteMisses = Counter.builder("cache.gets")
+            .tags("cache", name, "tier", "l2", "result", "miss")
+            .description("Lecturas que no estaban en Redis")
+            .register(meterRegistry);
+        this.coalescedLoads = Counter.builder("cache.loads.coalesced")
+            .tag("cache", name)
+            .description("Lecturas que esperaron la carga en curso de otro hilo")
+            .register(meterRegistry);
+        this.refreshesAhead = Counter.builder("cache.refresh.ahead")
+            .tag("cache", name)
+            .description("Recargas en segundo plano antes de la expiracion")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public RedisCache getRemoteCache() {
+        return remote;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            return wrapper;
+        }
+        remoteHits.increment();
+        local.put(localKey, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = (wrapper != null ? wrapper.get() : null);
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "El valor cacheado no es del tipo requerido [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+
+        // Single-flight: el primer hilo carga, los demas esperan el mismo resultado
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object result = loadFromRemoteOrSource(key, localKey, valueLoader);
+            load.complete(result);
+            return (T) result;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(localKey, load);
+        }
+    }
+
+    private Object loadFromRemoteOrSource(Object key, String localKey, Callable<?> valueLoader) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            local.put(localKey, wrapper.get());
+            maybeRefreshAhead(key, localKey, valueLoader);
+            return wrapper.get();
+        }
+        remoteMisses.increment();
+
+        if (!loadSettings.isDistributedLock()) {
+            return loadAndStore(key, localKey, valueLoader);
+        }
+
+        String lockKey = remoteKey(key) + ":lock";
+        String token = UUID.randomUUID().toString();
+        if (acquireLock(lockKey, token)) {
+            try {
+                return loadAndStore(key, localKey, valueLoader);
+            } finally {
+                releaseLock(lockKey, token);
+            }
+        }
+
+        // Otra instancia esta cargando: se espera su escritura en Redis hasta el TTL del lock
+        long deadline = System.nanoTime() + loadSettings.getLockTtl().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LOCK_POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                local.put(localKey, wrapper.get());
+                return wrapper.get();
+            }
+        }
+        return loadAndStore(key, localKey, valueLoader);
+    }
+
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        recordLoadTime(System.nanoTime() - start);
+
+        // Una carga no cambia el dato de origen: no hace falta invalidar otras instancias
+        if (result != null) {
+            remote.put(key, result);
+            local.put(localKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Refresco anticipado probabilistico (XFetch). La probabilidad de recargar
+     * crece a medida que la key se acerca a su expiracion en Redis:
+     * {@code ttlRestante <= (tiempoDeCarga + ttlL1) * beta * -ln(rand)}.
+     *
+     * El TTL del L1 entra en la ventana porque, con el L1 delante, cada
+     * instancia consulta Redis como mucho una vez por ese intervalo.
+     */
+    private void maybeRefreshAhead(Object key, String localKey, Callable<?> valueLoader) {
+        if (!loadSettings.isRefreshAhead() || inFlightRefreshes.contains(localKey)) {
+            return;
+        }
+        Long remainingMillis;
+        try {
+            remainingMillis = loadSettings.getRedisTemplate().getExpire(remoteKey(key), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return;
+        }
+        if (remainingMillis == null || remainingMillis < 0) {
+            return;
+        }
+
+        double window = (averageLoadMillis + localTtl.toMillis()) * loadSettings.getRefreshAheadBeta();
+        double threshold = window * -Math.log(ThreadLocalRandom.current().nextDouble(Double.MIN_VALUE, 1.0));
+        if (remainingMillis > threshold || !inFlightRefreshes.add(localKey)) {
+            return;
+        }
+
+        refreshesAhead.increment();
+        loadSettings.getRefreshExecutor().execute(() -> {
+            try {
+                loadAndStore(key, localKey, valueLoader);
+                log.debug("Refresco anticipado de {}::{} ({} ms restantes)", name, key, remainingMillis);
+            } catch (Exception e) {
+                log.warn("Fallo el refresco anticipado de {}::{}: {}", name, key, e.getMessage());
+            } finally {
+                inFlightRefreshes.remove(localKey);
+            }
+        });
+    }
+
+    private boolean acquireLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(loadSettings.getRedisTemplate().opsForValue()
+                .setIfAbsent(lockKey, token, loadSettings.getLockTtl()));
+        } catch (Exception e) {
+            // Sin Redis no hay coordinacion entre instancias; se carga localmente
+            return true;
+        }
+    }
+
+    private void releaseLock(String lockKey, String token) {
+        try {
+            loadSettings.getRedisTemplate().execute(RELEASE_LOCK, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.debug("No se pudo liberar el lock {}: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private void recordLoadTime(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        double previous = averageLoadMillis;
+        averageLoadMillis = previous == 0 ? millis : previous * 0.8 + millis * 0.2;
+    }
+
+    /**
+     * Key completa en Redis, con el mismo prefijo que usa {@link RedisCache}.
+     */
+    private String remoteKey(Object key) {
+        return remote.getCacheConfiguration().getKeyPrefixFor(name) + localKey(key);
+    }
+
+    /**
+     * Lectura multiple: resuelve primero en L1 y pide el resto a Redis en un
+     * solo MGET. Devuelve solo las keys encontradas, indexadas por su valor String.
+     */
+    public Map<String, Object> getAll(Collection<?> keys) {
+        Map<String, Object> found = new LinkedHashMap<>();
+        List<String> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            String localKey = localKey(key);
+            Object value = local.getIfPresent(localKey);
+            if (value != null) {
+                found.put(localKey, value);
+            } else if (!found.containsKey(localKey) && !remoteKeys.contains(localKey)) {
+                remoteKeys.add(localKey);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+
+        byte[][] rawKeys = remoteKeys.stream()
+            .map(k -> remoteKey(k).getBytes(StandardCharsets.UTF_8))
+            .toArray(byte[][]::new);
+        List<byte[]> rawValues = loadSettings.getRedisTemplate()
+            .execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+
+        RedisCacheConfiguration config = remote.getCacheConfiguration();
+        for (int i = 0; i < remoteKeys.size(); i++) {
+            byte[] raw = (rawValues != null && i < rawValues.size()) ? rawValues.get(i) : null;
+            Object value = (raw != null) ? config.getValueSerializationPair().read(ByteBuffer.wrap(raw)) : null;
+            if (value != null) {
+                remoteHits.increment();
+                local.put(remoteKeys.get(i), value);
+                found.put(remoteKeys.get(i), value);
+            } else {
+                remoteMisses.increment();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Escritura multiple en un solo pipeline de Redis, con el TTL configurado.
+     *
+     * Pensada para valores recien cargados desde la base de datos (back-fill o
+     * warm-up): como no cambian el dato de origen, no se difunde invalidacion.
+     */
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisCacheConfiguration config = remote.getCacheConfiguration();
+        Map<byte[], byte[]> rawEntries = new LinkedHashMap<>();
+        Map<byte[], Duration> ttls = new LinkedHashMap<>();
+        entries.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            byte[] rawKey = remoteKey(key).getBytes(StandardCharsets.UTF_8);
+            rawEntries.put(rawKey, toBytes(config.getValueSerializationPair().write(value)));
+            ttls.put(rawKey, config.getTtlFunction().getTimeToLive(key, value));
+            local.put(localKey(key), value);
+        });
+
+        loadSettings.getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            rawEntries.forEach((rawKey, rawValue) -> {
+                Duration ttl = ttls.get(rawKey);
+                Expiration expiration = (ttl == null || ttl.isZero() || ttl.isNegative())
+                    ? Expiration.persistent()
+                    : Expiration.from(ttl);
+                connection.stringCommands().set(rawKey, rawValue, expiration, RedisStringCommands.SetOption.upsert());
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Obtiene el {@link TwoLevelCache} detras de la decoracion transaccional, o
+     * {@code null} si el cache es de otro tipo.
+     */
+    public static TwoLevelCache unwrap(Cache cache) {
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return (cache instanceof TwoLevelCache twoLevel ? twoLevel : null);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), value);
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        Object effective = (existing != null ? existing.get() : value);
+        if (effective != null) {
+            local.put(localKey(key), effective);
+        }
+        if (existing == null) {
+            invalidationBus.publishEvict(name, localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remote.evictIfPresent(key);
+        local.invalidate(localKey(key));
+        invalidationBus.publishEvict(name, localKey(key));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Descarta la copia local de una key por invalidacion de otra instancia.
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    /**
+     * Descarta todo el L1 por invalidacion de otra instancia.
+     */
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Redis convierte las keys a String; el L1 hace lo mismo para que
+     * {@code 1L} y {@code "1"} apunten a la misma entrada en ambos niveles.
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,93 @@
+package com.proyecto.catalog.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * CacheManager que compone un L1 Caffeine por instancia con el
+ * {@link RedisCacheManager} existente como L2.
+ *
+ * Tambien escucha el canal de invalidacion de {@link CacheInvalidationBus}
+ * para descartar entradas L1 modificadas por otras instancias.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final RedisCacheManager redisCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final CacheLoadSettings loadSettings;
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                CacheInvalidationBus invalidationBus,
+                                CacheLoadSettings loadSettings,
+                                MeterRegistry meterRegistry,
+                                long localMaximumSize,
+                                Duration localTtl) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.loadSettings = loadSettings;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remote = redisCacheManager.getCache(name);
+        if (!(remote instanceof RedisCache redisCache)) {
+            return null;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+            .maximumSize(localMaximumSize)
+            .expireAfterWrite(localTtl)
+            .recordStats()
+            .build();
+        return new TwoLevelCache(name, local, localTtl, redisCache, invalidationBus, loadSettings, meterRegistry);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || invalidationBus.getInstanceId().equals(parts[1])) {
+            return;
+        }
+
+        TwoLevelCache cache = lookupTwoLevelCache(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CacheInvalidationBus.CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+        log.debug("Invalidacion remota aplicada: cache={}, key={}", parts[2], parts[3]);
+    }
+
+    private TwoLevelCache lookupTwoLevelCache(String name) {
+        // lookupCache no crea caches: si aun no existe localmente no hay L1 que invalidar
+        return TwoLevelCache.unwrap(lookupCache(name));
+    }
+}
@@ -0,0 +1,130 @@
+package com.proyecto.catalog.config;
+
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.service.CatalogService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precalentamiento del cache al arrancar, despues de {@link DataSeeder}.
+ *
+ * Se ejecuta como CommandLineRunner: Spring Boot no marca la instancia como
+ * ACCEPTING_TRAFFIC hasta que terminan los runners, por lo que el probe de
+ * readiness queda DOWN mientras dura el warm-up. Ademas se expone como health
+ * indicator "warmup" dentro del grupo readiness, con el detalle del progreso.
+ *
+ * Un fallo del warm-up (p. ej. Redis caido) no impide el arranque: se registra
+ * y la instancia empieza con el cache frio.
+ */
+@Component("warmupHealthIndicator")
+@Order(10)
+public class CatalogWarmup implements CommandLineRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+
+    private final CatalogService catalogService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer duration;
+    private final AtomicInteger productsLoaded = new AtomicInteger();
+
+    private final boolean enabled;
+    private final int maxProducts;
+    private final int batchSize;
+    private final boolean verifySearchIndex;
+
+    private volatile String state = "PENDING";
+    private volatile String searchIndex = "NOT_CHECKED";
+
+    public CatalogWarmup(CatalogService catalogService,
+                         ElasticsearchOperations elasticsearchOperations,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.warmup.enabled:true}") boolean enabled,
+                         @Value("${app.warmup.max-products:0}") int maxProducts,
+                         @Value("${app.warmup.batch-size:500}") int batchSize,
+                         @Value("${app.warmup.verify-search-index:true}") boolean verifySearchIndex) {
+        this.catalogService = catalogService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxProducts = maxProducts;
+        this.batchSize = batchSize;
+        this.verifySearchIndex = verifySearchIndex;
+
+        this.duration = Timer.builder("catalog.warmup.duration")
+            .description("Duracion del warm-up de arranque")
+            .register(meterRegistry);
+        Gauge.builder("catalog.warmup.products", productsLoaded, AtomicInteger::get)
+            .description("Productos precargados en cache durante el warm-up")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            state = "DISABLED";
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        state = "RUNNING";
+        log.info("Iniciando warm-up del catalogo (maxProducts={}, batchSize={})", maxProducts, batchSize);
+
+        Timer.Sample sample = Timer.start();
+        try {
+            productsLoaded.set(catalogService.warmUpProducts(maxProducts, batchSize));
+            if (verifySearchIndex) {
+                verifySearchIndex();
+            }
+            state = "COMPLETED";
+        } catch (Exception e) {
+            state = "FAILED";
+            log.warn("Warm-up incompleto, la instancia arranca con cache frio: {}", e.getMessage());
+        } finally {
+            long nanos = sample.stop(duration);
+            log.info("Warm-up finalizado: estado={}, productos={}, duracion={} ms",
+                state, productsLoaded.get(), nanos / 1_000_000);
+        }
+    }
+
+    private void verifySearchIndex() {
+        try {
+            boolean exists = elasticsearchOperations.indexOps(ProductDocument.class).exists();
+            searchIndex = exists ? "OK" : "MISSING";
+            if (!exists) {
+                log.warn("El indice de Elasticsearch de productos no existe; ejecutar POST /catalog/search/sync");
+            }
+        } catch (Exception e) {
+            searchIndex = "UNAVAILABLE";
+            log.warn("No se pudo verificar el indice de Elasticsearch: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (state) {
+            case "PENDING", "RUNNING" -> Health.outOfService();
+            default -> Health.up();
+        };
+        return builder
+            .withDetail("state", state)
+            .withDetail("productsLoaded", productsLoaded.get())
+            .withDetail("searchIndex", searchIndex)
+            .build();
+    }
+}
@@ -5,12 +5,14 @@ import com.proyecto.catalog.repository.ProductRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import java.util.Arrays;
 
 @Configuration
 public class DataSeeder {
 
     @Bean
+    @Order(0)
     CommandLineRunner initDatabase(ProductRepository repository) {
         return args -> {
             if (repository.count() == 0) {
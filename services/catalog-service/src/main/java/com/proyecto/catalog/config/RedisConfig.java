@@ -1,47 +1,128 @@
 package com.proyecto.catalog.config;
 
-import org.springframework.cache.CacheManager;
+import com.proyecto.catalog.cache.CacheInvalidationBus;
+import com.proyecto.catalog.cache.CacheLoadSettings;
+import com.proyecto.catalog.cache.ProductCacheCodec;
+import com.proyecto.catalog.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Configuracion de Redis Cache para el Catalog Service.
- * 
- * Define la configuracion del cache manager con serializacion JSON
- * y tiempo de expiracion de 5 minutos.
+ *
+ * Define la configuracion del cache manager con serializacion binaria
+ * (o JSON, segun app.cache.codec.type) y tiempo de expiracion de 5 minutos. Delante de Redis (L2) se ubica un
+ * cache en memoria (L1) por instancia, invalidado entre instancias via pub/sub.
  */
 @Configuration
 public class RedisConfig {
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheInvalidationBus cacheInvalidationBus(
+            StringRedisTemplate redisTemplate,
+            @Value("${app.cache.invalidation-channel:catalog:cache-invalidation}") String channel) {
+        return new CacheInvalidationBus(redisTemplate, channel);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cache-refresh-");
+        // Si la cola se llena el refresco se descarta: la key se recargara al expirar
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+
+    @Bean
+    public CacheLoadSettings cacheLoadSettings(
+            StringRedisTemplate redisTemplate,
+            ThreadPoolTaskExecutor cacheRefreshExecutor,
+            @Value("${app.cache.load.distributed-lock:false}") boolean distributedLock,
+            @Value("${app.cache.load.lock-ttl:2s}") Duration lockTtl,
+            @Value("${app.cache.load.refresh-ahead:true}") boolean refreshAhead,
+            @Value("${app.cache.load.refresh-ahead-beta:1.0}") double refreshAheadBeta) {
+        return new CacheLoadSettings(redisTemplate, distributedLock, lockTtl,
+            refreshAhead, refreshAheadBeta, cacheRefreshExecutor);
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            CacheInvalidationBus invalidationBus,
+            CacheLoadSettings cacheLoadSettings,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.l1.maximum-size:10000}") long localMaximumSize,
+            @Value("${app.cache.l1.ttl:60s}") Duration localTtl,
+            @Value("${app.cache.codec.type:binary}") String codec,
+            @Value("${app.cache.codec.compression-threshold:1024}") int compressionThreshold) {
+        boolean json = "json".equalsIgnoreCase(codec);
+        RedisSerializer<Object> valueSerializer = json
+            ? new GenericJackson2JsonRedisSerializer()
+            : new ProductCacheCodec(compressionThreshold);
+        // Los valores binarios van bajo otro prefijo: durante un despliegue gradual las
+        // instancias anteriores (solo JSON) nunca leen un valor que no pueden deserializar
+        String keyPrefix = json ? "catalog:" : "catalog:v2:";
+
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
             // TTL de 5 minutos
             .entryTtl(Duration.ofMinutes(5))
             // No cachear valores nulos
             .disableCachingNullValues()
             // Prefijo para las keys
-            .prefixCacheNameWith("catalog:")
+            .prefixCacheNameWith(keyPrefix)
             // Serializacion de keys como String
             .serializeKeysWith(
                 RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
             )
-            // Serializacion de valores como JSON
+            // Serializacion de valores (binaria por defecto; lee tambien valores JSON previos)
             .serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())
+                RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer)
             );
 
-        return RedisCacheManager.builder(connectionFactory)
+        // El L2 no es transaccional: la decoracion se aplica una sola vez sobre el cache de dos niveles
+        // clear() recorre las keys con SCAN en lotes en lugar de un KEYS bloqueante
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+            connectionFactory, BatchStrategies.scan(1000));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
             .cacheDefaults(config)
-            .transactionAware()
             .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(
+            redisCacheManager, invalidationBus, cacheLoadSettings, meterRegistry, localMaximumSize, localTtl);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager,
+            CacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationBus.getChannel()));
+        return container;
     }
 }
@@ -1,7 +1,15 @@
 package com.proyecto.catalog.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.catalog.dto.ImportResult;
+import com.proyecto.catalog.dto.ProductPage;
 import com.proyecto.catalog.model.Product;
 import com.proyecto.catalog.service.CatalogService;
+import com.proyecto.catalog.service.CatalogVersionService;
+import com.proyecto.catalog.service.InsufficientStockException;
+import com.proyecto.catalog.service.ProductImportService;
+import com.proyecto.catalog.service.StockBusyException;
+import com.proyecto.catalog.service.StockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,10 +17,22 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/catalog")
@@ -20,28 +40,208 @@ import java.util.List;
 public class CatalogController {
 
     private final CatalogService catalogService;
+    private final StockService stockService;
+    private final CatalogVersionService versionService;
+    private final ProductImportService importService;
+    private final ObjectMapper objectMapper;
 
-    public CatalogController(CatalogService catalogService) {
+    public CatalogController(CatalogService catalogService,
+                             StockService stockService,
+                             CatalogVersionService versionService,
+                             ProductImportService importService,
+                             ObjectMapper objectMapper) {
         this.catalogService = catalogService;
+        this.stockService = stockService;
+        this.versionService = versionService;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
         summary = "Obtener todos los productos",
-        description = "Retorna la lista completa de productos. Los resultados se cachean en Redis."
-    )
-    @ApiResponse(
-        responseCode = "200",
-        description = "Lista de productos obtenida exitosamente",
-        content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
+        description = "Retorna la lista completa de productos. Se arma a partir de las paginas cacheadas; " +
+            "para catalogos grandes usar /products/page o /products/stream. Soporta If-None-Match."
     )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Lista de productos obtenida exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "El catalogo no cambio desde el ETag indicado",
+            content = @Content
+        )
+    })
     @GetMapping("/products")
-    public List<Product> getAll() {
-        return catalogService.getAllProducts();
+    public ResponseEntity<List<Product>> getAll(WebRequest request) {
+        String etag = catalogETag("all");
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        return withETag(etag, catalogService.getAllProducts());
+    }
+
+    @Operation(
+        summary = "Obtener varios productos por ID",
+        description = "Retorna los productos pedidos en el mismo orden, omitiendo los inexistentes. " +
+            "Se resuelve con un MGET a Redis y una sola consulta a la base de datos para los faltantes. " +
+            "Soporta If-None-Match."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Productos encontrados",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Ningun producto cambio desde el ETag indicado",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Se excedio la cantidad maxima de IDs",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/products", params = "ids")
+    public ResponseEntity<List<Product>> getByIds(
+        @Parameter(description = "IDs separados por coma", required = true, example = "1,2,3")
+        @RequestParam(name = "ids") List<Long> ids,
+        WebRequest request
+    ) {
+        String etag = catalogETag("ids", ids);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return withETag(etag, catalogService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+        summary = "Obtener varios productos por ID (POST)",
+        description = "Variante de la consulta batch con los IDs en el cuerpo, para listas largas."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Productos encontrados",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Se excedio la cantidad maxima de IDs",
+            content = @Content
+        )
+    })
+    @PostMapping("/products/batch")
+    public ResponseEntity<List<Product>> getByIdsBatch(
+        @Parameter(description = "Lista de IDs de productos", required = true)
+        @RequestBody List<Long> ids
+    ) {
+        try {
+            return ResponseEntity.ok(catalogService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+        summary = "Obtener pagina de productos",
+        description = "Retorna una pagina de productos paginada por cursor (keyset), ordenada por id, price o name " +
+            "con desempate por id. Cada pagina se cachea en Redis. Soporta If-None-Match."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Pagina obtenida exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductPage.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "La pagina no cambio desde el ETag indicado",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Ordenamiento o cursor invalido",
+            content = @Content
+        )
+    })
+    @GetMapping("/products/page")
+    public ResponseEntity<ProductPage> getPage(
+        @Parameter(description = "Campo de ordenamiento: id, price, name", example = "price")
+        @RequestParam(name = "sort", defaultValue = "id") String sort,
+        @Parameter(description = "Direccion: asc o desc", example = "asc")
+        @RequestParam(name = "direction", defaultValue = "asc") String direction,
+        @Parameter(description = "Cursor devuelto por la pagina anterior")
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @Parameter(description = "Tamano de pagina (maximo configurable)", example = "20")
+        @RequestParam(name = "size", required = false) Integer size,
+        WebRequest request
+    ) {
+        String etag = catalogETag("page", sort, direction, cursor, size);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return withETag(etag, catalogService.getProductPage(sort, direction, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+        summary = "Exportar productos en streaming",
+        description = "Escribe todos los productos como NDJSON (un producto por linea) a medida que se leen " +
+            "de la base de datos en lotes keyset, sin materializar la lista completa."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Productos en formato NDJSON",
+            content = @Content(mediaType = "application/x-ndjson")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Ordenamiento invalido",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/products/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(
+        @Parameter(description = "Campo de ordenamiento: id, price, name", example = "id")
+        @RequestParam(name = "sort", defaultValue = "id") String sort,
+        @Parameter(description = "Direccion: asc o desc", example = "asc")
+        @RequestParam(name = "direction", defaultValue = "asc") String direction
+    ) {
+        if (!List.of("id", "price", "name").contains(sort)
+                || !List.of("asc", "desc").contains(direction.toLowerCase())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> catalogService.streamProducts(sort, direction, product -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 
     @Operation(
         summary = "Obtener producto por ID",
-        description = "Busca y retorna un producto especifico. El resultado se cachea en Redis."
+        description = "Busca y retorna un producto especifico. El resultado se cachea en Redis. " +
+            "Con If-None-Match responde 304 usando solo la version publicada en Redis."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -49,6 +249,11 @@ public class CatalogController {
             description = "Producto encontrado",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "El producto no cambio desde el ETag indicado",
+            content = @Content
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "Producto no encontrado",
@@ -58,16 +263,30 @@ public class CatalogController {
     @GetMapping("/products/{id}")
     public ResponseEntity<Product> getOne(
         @Parameter(description = "ID del producto", required = true, example = "1")
-        @PathVariable Long id
+        @PathVariable Long id,
+        WebRequest request
     ) {
-        return catalogService.getProductById(id)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        Long knownVersion = conditional ? versionService.productVersion(id) : null;
+        if (knownVersion != null && request.checkNotModified(ETags.product(id, knownVersion))) {
+            return null;
+        }
+
+        Optional<Product> product = catalogService.getProductById(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (conditional && knownVersion == null) {
+            // Publica la version para que el siguiente GET condicional no cargue el producto
+            versionService.rememberProductVersion(product.get());
+        }
+        return withProductETag(product.get());
     }
 
     @Operation(
         summary = "Actualizar stock de producto",
-        description = "Actualiza la cantidad de stock de un producto. Invalida el cache de productos."
+        description = "Actualiza la cantidad de stock de un producto. Actualiza solo la entrada cacheada del producto. " +
+            "Con If-Match solo se aplica si el producto sigue en la version indicada (bloqueo optimista)."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -75,10 +294,25 @@ public class CatalogController {
             description = "Stock actualizado exitosamente",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
         ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Stock nulo o negativo",
+            content = @Content
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "Producto no encontrado",
             content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Conflicto con una actualizacion concurrente",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "If-Match mal formado, de otro producto o el producto cambio desde ese ETag",
+            content = @Content
         )
     })
     @PutMapping("/products/{id}/stock")
@@ -86,19 +320,87 @@ public class CatalogController {
         @Parameter(description = "ID del producto", required = true, example = "1")
         @PathVariable Long id,
         @Parameter(description = "Nueva cantidad de stock", required = true, example = "100")
-        @RequestBody Integer newStock
+        @RequestBody Integer newStock,
+        @Parameter(description = "ETag del producto leido previamente", example = "\"p1-v3\"")
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? ETags.expectedProductVersion(ifMatch, id) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        try {
+            Product updated = catalogService.updateStock(id, newStock, expectedVersion);
+            return withProductETag(updated);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @Operation(
+        summary = "Descontar stock de producto",
+        description = "Descuenta stock de forma atomica (UPDATE condicional). Nunca deja stock negativo " +
+            "ni pierde actualizaciones concurrentes."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock descontado exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cantidad invalida",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Producto no encontrado",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Stock insuficiente",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Demasiadas peticiones concurrentes sobre el producto, reintentar (Retry-After)",
+            content = @Content
+        )
+    })
+    @PostMapping("/products/{id}/stock/decrement")
+    public ResponseEntity<Product> decrementStock(
+        @Parameter(description = "ID del producto", required = true, example = "1")
+        @PathVariable Long id,
+        @Parameter(description = "Cantidad a descontar", required = true)
+        @RequestBody Map<String, Integer> body
     ) {
+        Integer quantity = body.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            Product updated = catalogService.updateStock(id, newStock);
-            return ResponseEntity.ok(updated);
-        } catch (RuntimeException e) {
+            return ResponseEntity.ok(stockService.decrementStock(id, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (StockBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 
     @Operation(
         summary = "Crear nuevo producto",
-        description = "Crea un nuevo producto en el catalogo. Invalida el cache de productos."
+        description = "Crea un nuevo producto en el catalogo. Lo agrega al cache de productos."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -120,9 +422,43 @@ public class CatalogController {
         return catalogService.createProduct(product);
     }
 
+    @Operation(
+        summary = "Importar productos de forma masiva",
+        description = "Importa productos desde NDJSON (un objeto por linea) o CSV con cabecera sku,name,price,stock. " +
+            "El archivo se procesa en streaming por lotes, con upsert por SKU. Los productos nuevos o modificados " +
+            "se indexan en Elasticsearch por lotes y el cache se invalida una sola vez al final."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Importacion completada (puede incluir registros rechazados)",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Formato no soportado o cabecera CSV invalida",
+            content = @Content
+        )
+    })
+    @PostMapping(value = "/products/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportResult> importProducts(
+        @Parameter(description = "Tipo de contenido: application/x-ndjson o text/csv", required = true)
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) throws IOException {
+        try {
+            ImportResult result = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? importService.importNdjson(body)
+                : importService.importCsv(body);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(
         summary = "Eliminar producto",
-        description = "Elimina un producto del catalogo. Invalida el cache de productos."
+        description = "Elimina un producto del catalogo. Invalida solo la entrada cacheada del producto."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -147,4 +483,23 @@ public class CatalogController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * ETag de un listado, o {@code null} si la version del catalogo no esta disponible.
+     */
+    private String catalogETag(Object... params) {
+        Long catalogVersion = versionService.catalogVersion();
+        return catalogVersion != null ? ETags.catalog(catalogVersion, params) : null;
+    }
+
+    private static <T> ResponseEntity<T> withETag(String etag, T body) {
+        return etag != null ? ResponseEntity.ok().eTag(etag).body(body) : ResponseEntity.ok(body);
+    }
+
+    private static ResponseEntity<Product> withProductETag(Product product) {
+        // Los productos cacheados antes de agregar la columna pueden no tener version
+        return product.getVersion() != null
+            ? ResponseEntity.ok().eTag(ETags.product(product.getId(), product.getVersion())).body(product)
+            : ResponseEntity.ok(product);
+    }
 }
@@ -0,0 +1,49 @@
+package com.proyecto.catalog.controller;
+
+import java.util.Arrays;
+
+/**
+ * Formato de los ETags fuertes del catalogo.
+ *
+ * - Producto: {@code "p<id>-v<version>"}, derivado de la columna version.
+ * - Listados: {@code "c<version del catalogo>-<hash de los parametros>"}, para
+ *   que cada combinacion de pagina, orden o IDs tenga su propio ETag.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String product(Long id, Long version) {
+        return "\"p" + id + "-v" + version + "\"";
+    }
+
+    static String catalog(Long catalogVersion, Object... params) {
+        return "\"c" + catalogVersion + "-" + Integer.toHexString(Arrays.deepHashCode(params)) + "\"";
+    }
+
+    /**
+     * Extrae la version esperada de un header If-Match de producto.
+     *
+     * @return la version, o {@code null} si el header es {@code *}
+     * @throws IllegalArgumentException si el ETag no corresponde al producto
+     */
+    static Long expectedProductVersion(String ifMatch, Long id) {
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return null;
+        }
+        if (value.startsWith("W/")) {
+            throw new IllegalArgumentException("If-Match requiere un ETag fuerte");
+        }
+        String prefix = "\"p" + id + "-v";
+        if (!value.startsWith(prefix) || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("ETag invalido para el producto " + id + ": " + value);
+        }
+        try {
+            return Long.valueOf(value.substring(prefix.length(), value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ETag invalido para el producto " + id + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.proyecto.catalog.controller;
+
+import com.proyecto.catalog.dto.ReservationRequest;
+import com.proyecto.catalog.dto.ReservationResponse;
+import com.proyecto.catalog.service.InsufficientStockException;
+import com.proyecto.catalog.service.ReservationExpiredException;
+import com.proyecto.catalog.service.StockBusyException;
+import com.proyecto.catalog.service.StockService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Controlador para reservas de stock con expiracion.
+ */
+@RestController
+@RequestMapping("/catalog/reservations")
+@Tag(name = "Reservations", description = "API para reservar, confirmar y liberar stock")
+public class ReservationController {
+
+    private final StockService stockService;
+
+    public ReservationController(StockService stockService) {
+        this.stockService = stockService;
+    }
+
+    @Operation(
+        summary = "Crear reserva de stock",
+        description = "Reserva stock de uno o varios productos en una sola transaccion (todos o ninguno). " +
+            "Si no se confirma antes de expirar, el stock se devuelve automaticamente."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Reserva creada",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Solicitud invalida",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Algun producto no existe",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Stock insuficiente para algun producto",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Demasiadas peticiones concurrentes sobre el producto, reintentar (Retry-After)",
+            content = @Content
+        )
+    })
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(
+        @Parameter(description = "Productos y cantidades a reservar", required = true)
+        @RequestBody ReservationRequest request
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(stockService.reserve(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (StockBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    @Operation(
+        summary = "Confirmar reserva",
+        description = "Confirma una reserva vigente; el stock queda descontado definitivamente."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Reserva confirmada",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Reserva no encontrada",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "La reserva ya fue confirmada, liberada o expiro",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "410",
+            description = "La reserva vencio y su stock se devolvera al producto",
+            content = @Content
+        )
+    })
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(
+        @Parameter(description = "ID de la reserva", required = true)
+        @PathVariable String reservationId
+    ) {
+        try {
+            return ResponseEntity.ok(stockService.confirm(reservationId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ReservationExpiredException e) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @Operation(
+        summary = "Liberar reserva",
+        description = "Cancela una reserva vigente y devuelve su stock."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Reserva liberada",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Reserva no encontrada",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "La reserva ya fue confirmada, liberada o expiro",
+            content = @Content
+        )
+    })
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<ReservationResponse> release(
+        @Parameter(description = "ID de la reserva", required = true)
+        @PathVariable String reservationId
+    ) {
+        try {
+            return ResponseEntity.ok(stockService.release(reservationId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
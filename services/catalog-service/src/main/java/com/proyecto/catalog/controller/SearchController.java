@@ -1,7 +1,15 @@
 package com.proyecto.catalog.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ProductSearchPage;
+import com.proyecto.catalog.dto.ReindexStatus;
+import com.proyecto.catalog.dto.SearchStats;
+import com.proyecto.catalog.search.ProductIndexExporter;
+import com.proyecto.catalog.search.ProductSearchCriteria;
+import com.proyecto.catalog.search.ProductSearchEngine;
 import com.proyecto.catalog.search.ProductSearchService;
+import com.proyecto.catalog.search.ProductSuggestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,9 +17,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -24,23 +37,40 @@ import java.util.Map;
 public class SearchController {
 
     private final ProductSearchService searchService;
+    private final ProductSuggestService suggestService;
+    private final ProductIndexExporter indexExporter;
+    private final ObjectMapper objectMapper;
 
-    public SearchController(ProductSearchService searchService) {
+    public SearchController(ProductSearchService searchService,
+                            ProductSuggestService suggestService,
+                            ProductIndexExporter indexExporter,
+                            ObjectMapper objectMapper) {
         this.searchService = searchService;
+        this.suggestService = suggestService;
+        this.indexExporter = indexExporter;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
         summary = "Buscar productos",
-        description = "Busca productos por nombre, estado de stock o precio maximo. " +
-            "Si no se proporcionan parametros, retorna todos los productos indexados."
-    )
-    @ApiResponse(
-        responseCode = "200",
-        description = "Busqueda realizada exitosamente",
-        content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductDocument.class))
+        description = "Busca productos por nombre, estado de stock y precio maximo, combinando todos los " +
+            "parametros recibidos en una sola consulta. Retorna como maximo los primeros resultados " +
+            "(app.search.legacy-max-results); para paginar usar /catalog/search/products."
     )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Busqueda realizada exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductDocument.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Estado de stock invalido",
+            content = @Content(mediaType = "application/json")
+        )
+    })
     @GetMapping
-    public List<ProductDocument> search(
+    public ResponseEntity<List<ProductDocument>> search(
         @Parameter(description = "Texto a buscar en el nombre del producto", example = "laptop")
         @RequestParam(name = "q", required = false) String query,
         @Parameter(description = "Estado de stock: OK, LOW, OUT_OF_STOCK", example = "OK")
@@ -48,65 +78,266 @@ public class SearchController {
         @Parameter(description = "Precio maximo del producto", example = "500.00")
         @RequestParam(name = "maxPrice", required = false) Double maxPrice
     ) {
-        if (query != null && !query.isBlank()) {
-            return searchService.searchByName(query);
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setQ(query);
+        criteria.setStatus(status);
+        criteria.setMaxPrice(maxPrice);
+        try {
+            return ResponseEntity.ok(searchService.searchList(criteria));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        if (status != null && !status.isBlank()) {
-            return searchService.searchByStockStatus(status);
+    }
+
+    @Operation(
+        summary = "Buscar productos con filtros y paginacion",
+        description = "Combina texto, estado de stock y rangos de precio y stock en una sola consulta de " +
+            "Elasticsearch. El texto ignora mayusculas y acentos, tolera errores de tipeo y encuentra palabras " +
+            "incompletas; con orden relevance los resultados vienen por score y con el nombre resaltado en highlights. " +
+            "Pagina con page/size hasta 10.000 resultados; mas alla usar el cursor " +
+            "nextCursor de la respuesta (search_after). Si el motor de busqueda cambio entre paginas (Elasticsearch " +
+            "fallo o se recupero), un cursor de relevance no se puede continuar: se devuelve la primera pagina " +
+            "con cursorReset=true. El total es exacto hasta 10.000 coincidencias. " +
+            "Con facets=true incluye, en la misma consulta, los conteos por estado de stock y rango de precio; " +
+            "cada faceta ignora su propio filtro para mostrar las alternativas."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Busqueda realizada exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSearchPage.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Orden, estado, cursor o pagina invalidos",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @GetMapping("/products")
+    public ResponseEntity<?> searchProducts(
+        @Parameter(description = "Texto a buscar en el nombre del producto", example = "laptop")
+        @RequestParam(name = "q", required = false) String query,
+        @Parameter(description = "Estado de stock: OK, LOW, OUT_OF_STOCK", example = "OK")
+        @RequestParam(name = "status", required = false) String status,
+        @Parameter(description = "Precio minimo", example = "100.00")
+        @RequestParam(name = "minPrice", required = false) Double minPrice,
+        @Parameter(description = "Precio maximo", example = "500.00")
+        @RequestParam(name = "maxPrice", required = false) Double maxPrice,
+        @Parameter(description = "Stock minimo", example = "1")
+        @RequestParam(name = "minStock", required = false) Integer minStock,
+        @Parameter(description = "Stock maximo", example = "50")
+        @RequestParam(name = "maxStock", required = false) Integer maxStock,
+        @Parameter(description = "Orden: relevance, price, name, stock", example = "price")
+        @RequestParam(name = "sort", defaultValue = "relevance") String sort,
+        @Parameter(description = "Direccion: asc o desc (ignorada con relevance)", example = "asc")
+        @RequestParam(name = "direction", defaultValue = "asc") String direction,
+        @Parameter(description = "Pagina, desde 0", example = "0")
+        @RequestParam(name = "page", defaultValue = "0") int page,
+        @Parameter(description = "Tamano de pagina", example = "20")
+        @RequestParam(name = "size", required = false) Integer size,
+        @Parameter(description = "Cursor nextCursor de la pagina anterior")
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @Parameter(description = "Incluir conteos por estado de stock y rango de precio", example = "true")
+        @RequestParam(name = "facets", defaultValue = "false") boolean facets
+    ) {
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setQ(query);
+        criteria.setStatus(status);
+        criteria.setMinPrice(minPrice);
+        criteria.setMaxPrice(maxPrice);
+        criteria.setMinStock(minStock);
+        criteria.setMaxStock(maxStock);
+        criteria.setSort(sort);
+        criteria.setDirection(direction);
+        criteria.setPage(page);
+        criteria.setSize(size);
+        criteria.setCursor(cursor);
+        criteria.setFacets(facets);
+        try {
+            return ResponseEntity.ok(searchService.search(criteria));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
-        
-        if (maxPrice != null) {
-            return searchService.searchByMaxPrice(maxPrice);
+    }
+
+    @Operation(
+        summary = "Exportar el indice en streaming",
+        description = "Escribe como NDJSON (un producto por linea) todos los documentos del indice, o los que " +
+            "cumplen los filtros, en orden de id. Recorre un point-in-time con search_after en paginas de " +
+            "app.search.export.page-size y escribe cada pagina apenas llega, sin limite de 10.000 resultados. " +
+            "Para retomar una exportacion cortada, pasar en afterId el id de la ultima linea recibida."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Productos en formato NDJSON",
+            content = @Content(mediaType = "application/x-ndjson")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Estado de stock invalido",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+        @Parameter(description = "Texto a buscar en el nombre del producto", example = "laptop")
+        @RequestParam(name = "q", required = false) String query,
+        @Parameter(description = "Estado de stock: OK, LOW, OUT_OF_STOCK", example = "OK")
+        @RequestParam(name = "status", required = false) String status,
+        @Parameter(description = "Precio minimo", example = "100.00")
+        @RequestParam(name = "minPrice", required = false) Double minPrice,
+        @Parameter(description = "Precio maximo", example = "500.00")
+        @RequestParam(name = "maxPrice", required = false) Double maxPrice,
+        @Parameter(description = "Stock minimo", example = "1")
+        @RequestParam(name = "minStock", required = false) Integer minStock,
+        @Parameter(description = "Stock maximo", example = "50")
+        @RequestParam(name = "maxStock", required = false) Integer maxStock,
+        @Parameter(description = "Id del ultimo producto recibido, para retomar la exportacion", example = "15230")
+        @RequestParam(name = "afterId", required = false) String afterId
+    ) {
+        if (status != null && !status.isBlank()
+                && !ProductSearchEngine.STOCK_STATUSES.contains(status.trim().toUpperCase())) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setQ(query);
+        criteria.setStatus(status);
+        criteria.setMinPrice(minPrice);
+        criteria.setMaxPrice(maxPrice);
+        criteria.setMinStock(minStock);
+        criteria.setMaxStock(maxStock);
+
+        StreamingResponseBody body = out -> indexExporter.export(criteria, afterId, page -> {
+            try {
+                for (ProductDocument document : page) {
+                    out.write(objectMapper.writeValueAsBytes(document));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+
+    @Operation(
+        summary = "Autocompletar nombres de productos",
+        description = "Retorna los nombres de productos que empiezan por el prefijo o que tienen una palabra que " +
+            "empieza por el. Usa el completion suggester de Elasticsearch y cachea los prefijos mas pedidos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Sugerencias obtenidas exitosamente",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Prefijo vacio o demasiado largo",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+        @Parameter(description = "Prefijo escrito por el usuario", example = "lap")
+        @RequestParam(name = "prefix") String prefix,
+        @Parameter(description = "Cantidad maxima de sugerencias", example = "8")
+        @RequestParam(name = "size", required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(suggestService.suggest(prefix, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        // Si no hay parametros, retornar todos los indexados
-        return searchService.getAllIndexed();
     }
 
     @Operation(
         summary = "Sincronizar productos a Elasticsearch",
-        description = "Sincroniza todos los productos de PostgreSQL al indice de Elasticsearch"
+        description = "Sincroniza todos los productos de PostgreSQL al indice de Elasticsearch y espera a que termine. " +
+            "Reconstruye el indice en streaming y cambia el alias al final; para catalogos grandes usar /reindex."
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
             description = "Sincronizacion completada exitosamente",
             content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Ya hay una reindexacion en curso, o la sincronizacion fallo",
+            content = @Content(mediaType = "application/json")
         )
     })
     @PostMapping("/sync")
     public ResponseEntity<Map<String, Object>> syncProducts() {
-        int count = searchService.syncAllProducts();
-        return ResponseEntity.ok(Map.of(
-            "message", "Sincronizacion completada",
-            "productsIndexed", count
-        ));
+        try {
+            int count = searchService.syncAllProducts();
+            return ResponseEntity.ok(Map.of(
+                "message", "Sincronizacion completada",
+                "productsIndexed", count
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @Operation(
+        summary = "Iniciar reindexacion completa",
+        description = "Reconstruye el indice en segundo plano: lee PostgreSQL en lotes keyset, indexa en paralelo " +
+            "en un indice versionado nuevo y mueve el alias 'products' al terminar, sin cortar la busqueda."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "Reindexacion iniciada",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReindexStatus.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Ya hay una reindexacion en curso",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReindexStatus.class))
+        )
+    })
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatus> startReindex() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchService.startReindex());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(searchService.getReindexStatus());
+        }
+    }
+
+    @Operation(
+        summary = "Estado de la reindexacion",
+        description = "Retorna el progreso y el rendimiento (documentos por segundo) de la reindexacion en curso o de la ultima"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Estado obtenido exitosamente",
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReindexStatus.class))
+    )
+    @GetMapping("/reindex")
+    public ReindexStatus getReindexStatus() {
+        return searchService.getReindexStatus();
     }
 
     @Operation(
         summary = "Obtener estadisticas del indice",
-        description = "Retorna estadisticas del indice de Elasticsearch: total indexado, por estado de stock"
+        description = "Retorna estadisticas del indice de Elasticsearch: total indexado, conteo por estado de stock, " +
+            "distribucion de precios y unidades en stock. Se calculan con agregaciones y se cachean unos segundos."
     )
     @ApiResponse(
         responseCode = "200",
         description = "Estadisticas obtenidas exitosamente",
-        content = @Content(mediaType = "application/json")
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchStats.class))
     )
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getStats() {
-        List<ProductDocument> all = searchService.getAllIndexed();
-        
-        long inStock = all.stream().filter(p -> "OK".equals(p.getStockStatus())).count();
-        long lowStock = all.stream().filter(p -> "LOW".equals(p.getStockStatus())).count();
-        long outOfStock = all.stream().filter(p -> "OUT_OF_STOCK".equals(p.getStockStatus())).count();
-        
-        return ResponseEntity.ok(Map.of(
-            "totalIndexed", all.size(),
-            "inStock", inStock,
-            "lowStock", lowStock,
-            "outOfStock", outOfStock
-        ));
+    public SearchStats getStats() {
+        return searchService.getStats();
     }
 
     @Operation(
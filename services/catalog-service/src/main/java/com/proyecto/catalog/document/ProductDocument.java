@@ -1,30 +1,71 @@
 package com.proyecto.catalog.document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.proyecto.catalog.model.Product;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.CompletionField;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
+
+import java.util.Arrays;
 
 /**
  * Documento Elasticsearch para productos.
  * Representa un producto indexado para busqueda full-text.
+ *
+ * "products" es un alias: los indices fisicos versionados los crea
+ * {@link com.proyecto.catalog.search.ProductIndexManager} con los analizadores
+ * de elasticsearch/product-settings.json.
  */
-@Document(indexName = "products")
+@Document(indexName = "products", createIndex = false)
+@Setting(settingPath = "/elasticsearch/product-settings.json")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Documento de producto indexado en Elasticsearch")
 public class ProductDocument {
 
+    private static final int MAX_SUGGEST_INPUTS = 5;
+
+    /**
+     * id.numeric: el mismo ID como long, para desempatar el orden por valor
+     * numerico como el indice en memoria ("9" antes que "10").
+     */
     @Id
+    @MultiField(
+        mainField = @Field(type = FieldType.Keyword),
+        otherFields = @InnerField(suffix = "numeric", type = FieldType.Long)
+    )
     @Schema(description = "ID del producto", example = "1")
     private String id;
 
-    @Field(type = FieldType.Text, analyzer = "standard")
+    @Field(type = FieldType.Keyword)
+    @Schema(description = "Codigo SKU del producto", example = "LAP-HP-001")
+    private String sku;
+
+    /**
+     * name: palabras en minusculas y sin acentos ("Ergonómica" -> "ergonomica").
+     * name.ngram: ademas los prefijos de cada palabra (2 a 20 letras), para
+     * encontrar palabras incompletas sin comodines; se consulta con el
+     * analizador de name para no partir tambien el texto buscado.
+     */
+    @MultiField(
+        mainField = @Field(type = FieldType.Text, analyzer = "product_name"),
+        otherFields = {
+            @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256),
+            @InnerField(suffix = "ngram", type = FieldType.Text, analyzer = "product_name_ngram",
+                searchAnalyzer = "product_name")
+        }
+    )
     @Schema(description = "Nombre del producto", example = "Laptop HP Pavilion")
     private String name;
 
@@ -40,6 +81,15 @@ public class ProductDocument {
     @Schema(description = "Estado del stock", example = "OK", allowableValues = {"OK", "LOW", "OUT_OF_STOCK"})
     private String stockStatus;
 
+    /**
+     * Entradas del autocompletado: el nombre completo y el nombre desde cada
+     * palabra, para sugerir tambien por palabras intermedias.
+     */
+    @CompletionField(maxInputLength = 100, analyzer = "product_name", searchAnalyzer = "product_name")
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Completion suggest;
+
     /**
      * Crea un ProductDocument desde un Product de JPA.
      */
@@ -50,9 +100,32 @@ public class ProductDocument {
         doc.setPrice(price);
         doc.setStock(stock);
         doc.setStockStatus(calculateStockStatus(stock));
+        doc.setSuggest(suggestInputs(name));
         return doc;
     }
 
+    /**
+     * Crea un ProductDocument desde un Product de JPA, incluyendo el SKU.
+     */
+    public static ProductDocument fromProduct(Product product) {
+        ProductDocument doc = fromProduct(product.getId(), product.getName(), product.getPrice(), product.getStock());
+        doc.setSku(product.getSku());
+        return doc;
+    }
+
+    private static Completion suggestInputs(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String[] words = name.trim().split("\\s+");
+        int count = Math.min(words.length, MAX_SUGGEST_INPUTS);
+        String[] inputs = new String[count];
+        for (int i = 0; i < count; i++) {
+            inputs[i] = String.join(" ", Arrays.copyOfRange(words, i, words.length));
+        }
+        return new Completion(inputs);
+    }
+
     private static String calculateStockStatus(Integer stock) {
         if (stock == null || stock == 0) return "OUT_OF_STOCK";
         if (stock <= 5) return "LOW";
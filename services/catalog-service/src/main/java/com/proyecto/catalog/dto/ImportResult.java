@@ -0,0 +1,39 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(description = "Resultado de una importacion masiva de productos")
+public class ImportResult {
+
+    @Schema(description = "Registros leidos del archivo", example = "250000")
+    private long received;
+
+    @Schema(description = "Productos nuevos insertados", example = "180000")
+    private long inserted;
+
+    @Schema(description = "Productos existentes (mismo SKU) actualizados", example = "65000")
+    private long updated;
+
+    @Schema(description = "Productos existentes sin cambios", example = "4990")
+    private long unchanged;
+
+    @Schema(description = "Registros rechazados por datos invalidos", example = "10")
+    private long rejected;
+
+    @Schema(description = "Documentos indexados en Elasticsearch", example = "245000")
+    private long indexed;
+
+    @Schema(description = "Documentos que no se pudieron indexar (se corrigen con /catalog/search/sync)", example = "0")
+    private long indexFailures;
+
+    @Schema(description = "Duracion total en milisegundos", example = "95000")
+    private long durationMs;
+
+    @Schema(description = "Primeros errores encontrados, con numero de linea")
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,34 @@
+package com.proyecto.catalog.dto;
+
+import com.proyecto.catalog.model.Product;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pagina de productos obtenida por keyset (cursor).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina de productos paginada por cursor")
+public class ProductPage {
+
+    @Schema(description = "Productos de la pagina")
+    private List<Product> items;
+
+    @Schema(description = "Cursor para pedir la siguiente pagina; null si es la ultima", example = "eyJzIjoiaWQiLCJkIjoiYXNjIiwiayI6eyJpZCI6MjB9fQ")
+    private String nextCursor;
+
+    @Schema(description = "Tamano de pagina aplicado", example = "20")
+    private int size;
+
+    @Schema(description = "Campo de ordenamiento", example = "id", allowableValues = {"id", "price", "name"})
+    private String sort;
+
+    @Schema(description = "Direccion de ordenamiento", example = "asc", allowableValues = {"asc", "desc"})
+    private String direction;
+}
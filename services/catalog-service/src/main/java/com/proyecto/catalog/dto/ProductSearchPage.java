@@ -0,0 +1,47 @@
+package com.proyecto.catalog.dto;
+
+import com.proyecto.catalog.document.ProductDocument;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina de resultados de busqueda")
+public class ProductSearchPage {
+
+    @Schema(description = "Productos de la pagina")
+    private List<ProductDocument> items;
+
+    @Schema(description = "Total de coincidencias", example = "1532")
+    private long total;
+
+    @Schema(description = "eq si el total es exacto, gte si es un minimo (se dejo de contar)",
+        example = "eq", allowableValues = {"eq", "gte"})
+    private String totalRelation;
+
+    @Schema(description = "Pagina actual (paginacion from/size)", example = "0")
+    private int page;
+
+    @Schema(description = "Tamano de pagina", example = "20")
+    private int size;
+
+    @Schema(description = "Cursor search_after para la pagina siguiente; null si no hay mas")
+    private String nextCursor;
+
+    @Schema(description = "Facetas para filtros laterales; solo si se pidieron con facets=true")
+    private SearchFacets facets;
+
+    @Schema(description = "Nombre con las coincidencias marcadas con <em>, por id de producto; solo con texto de busqueda y Elasticsearch",
+        example = "{\"15\": \"<em>Laptop</em> HP Pavilion\"}")
+    private Map<String, String> highlights;
+
+    @Schema(description = "true si el cursor recibido era de relevancia y de otro motor de busqueda (Elasticsearch " +
+        "paso al indice en memoria o se recupero): se ignoro y esta es la primera pagina", example = "false")
+    private boolean cursorReset;
+}
@@ -0,0 +1,38 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Schema(description = "Estado de la reindexacion completa de productos")
+public class ReindexStatus {
+
+    @Schema(description = "Estado", example = "RUNNING", allowableValues = {"IDLE", "RUNNING", "COMPLETED", "FAILED"})
+    private String state = "IDLE";
+
+    @Schema(description = "Indice nuevo en construccion (o construido en la ultima ejecucion)", example = "products-v20240115103000")
+    private String targetIndex;
+
+    @Schema(description = "Productos a indexar, contados al iniciar", example = "250000")
+    private long total;
+
+    @Schema(description = "Productos indexados hasta ahora", example = "120000")
+    private long processed;
+
+    @Schema(description = "Documentos vueltos a copiar por cambios durante la reindexacion", example = "35")
+    private long caughtUp;
+
+    @Schema(description = "Documentos por segundo", example = "8500.0")
+    private double docsPerSecond;
+
+    @Schema(description = "Inicio de la ejecucion", example = "2024-01-15T10:30:00")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Fin de la ejecucion", example = "2024-01-15T10:30:29")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Motivo del fallo, si lo hubo")
+    private String error;
+}
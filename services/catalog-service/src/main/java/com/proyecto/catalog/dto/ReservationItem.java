@@ -0,0 +1,19 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Producto y cantidad a reservar")
+public class ReservationItem {
+
+    @Schema(description = "ID del producto", example = "1", required = true)
+    private Long productId;
+
+    @Schema(description = "Cantidad a reservar", example = "2", minimum = "1", required = true)
+    private Integer quantity;
+}
@@ -0,0 +1,21 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Solicitud de reserva de stock para uno o varios productos")
+public class ReservationRequest {
+
+    @Schema(description = "Productos a reservar; se reservan todos o ninguno", required = true)
+    private List<ReservationItem> items;
+
+    @Schema(description = "Segundos hasta que la reserva expira y el stock se libera", example = "900")
+    private Integer ttlSeconds;
+}
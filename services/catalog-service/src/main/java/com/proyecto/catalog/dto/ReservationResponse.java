@@ -0,0 +1,29 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Estado de una reserva de stock")
+public class ReservationResponse {
+
+    @Schema(description = "ID de la reserva", example = "3f1c7a52-9d4e-4f0b-a1e2-6b8f0c9d1e23")
+    private String reservationId;
+
+    @Schema(description = "Estado de la reserva", example = "RESERVED",
+        allowableValues = {"RESERVED", "CONFIRMED", "RELEASED", "EXPIRED"})
+    private String status;
+
+    @Schema(description = "Fecha y hora de expiracion", example = "2024-01-15T10:45:00")
+    private LocalDateTime expiresAt;
+
+    @Schema(description = "Productos reservados")
+    private List<ReservationItem> items;
+}
@@ -0,0 +1,46 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Conteos para armar los filtros laterales de la busqueda.
+ *
+ * Cada faceta cuenta con todos los filtros aplicados salvo el suyo, para que
+ * el cliente pueda mostrar cuantos resultados habria al elegir otra opcion.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Facetas de la busqueda")
+public class SearchFacets {
+
+    @Schema(description = "Conteo por estado de stock")
+    private List<Bucket> stockStatus;
+
+    @Schema(description = "Conteo por rango de precio (app.search.facets.price-ranges)")
+    private List<Bucket> price;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Opcion de una faceta")
+    public static class Bucket {
+
+        @Schema(description = "Valor o rango", example = "100-500")
+        private String key;
+
+        @Schema(description = "Limite inferior del rango (incluido); null si no tiene", example = "100.0")
+        private Double from;
+
+        @Schema(description = "Limite superior del rango (excluido); null si no tiene", example = "500.0")
+        private Double to;
+
+        @Schema(description = "Productos que coinciden", example = "42")
+        private long count;
+    }
+}
@@ -0,0 +1,73 @@
+package com.proyecto.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadisticas del indice de productos calculadas con agregaciones.
+ */
+@Data
+@Schema(description = "Estadisticas del indice de productos")
+public class SearchStats {
+
+    @Schema(description = "Total de productos indexados", example = "250000")
+    private long totalIndexed;
+
+    @Schema(description = "Productos con stock OK", example = "180000")
+    private long inStock;
+
+    @Schema(description = "Productos con stock bajo", example = "50000")
+    private long lowStock;
+
+    @Schema(description = "Productos sin stock", example = "20000")
+    private long outOfStock;
+
+    @Schema(description = "Conteo por estado de stock")
+    private Map<String, Long> byStockStatus;
+
+    @Schema(description = "Precio minimo", example = "4.99")
+    private Double minPrice;
+
+    @Schema(description = "Precio maximo", example = "2499.00")
+    private Double maxPrice;
+
+    @Schema(description = "Precio promedio", example = "187.35")
+    private Double avgPrice;
+
+    @Schema(description = "Percentiles de precio (aproximados)", example = "{\"p50\": 99.9, \"p90\": 450.0, \"p99\": 1299.0}")
+    private Map<String, Double> pricePercentiles;
+
+    @Schema(description = "Histograma de precios; solo rangos con productos")
+    private List<PriceBucket> priceHistogram;
+
+    @Schema(description = "Unidades en stock sumando todos los productos", example = "3150000")
+    private long totalStock;
+
+    @Schema(description = "Stock promedio por producto", example = "12.6")
+    private Double avgStock;
+
+    @Schema(description = "Momento en que se calcularon", example = "2024-01-15T10:30:00")
+    private LocalDateTime generatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Rango del histograma de precios")
+    public static class PriceBucket {
+
+        @Schema(description = "Limite inferior del rango (incluido)", example = "100.0")
+        private double from;
+
+        @Schema(description = "Limite superior del rango (excluido)", example = "200.0")
+        private double to;
+
+        @Schema(description = "Productos en el rango", example = "4200")
+        private long count;
+    }
+}
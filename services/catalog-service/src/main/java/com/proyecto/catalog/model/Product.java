@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "ux_products_sku", columnList = "sku", unique = true)
+})
 @Data
 @Schema(description = "Producto del catalogo")
 public class Product {
@@ -15,6 +17,10 @@ public class Product {
     @Schema(description = "ID unico del producto", example = "1", accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
+    @Column(length = 64)
+    @Schema(description = "Codigo SKU (clave natural usada por la importacion masiva)", example = "LAP-HP-001")
+    private String sku;
+
     @Schema(description = "Nombre del producto", example = "Laptop HP Pavilion", required = true)
     private String name;
     
@@ -24,6 +30,12 @@ public class Product {
     @Schema(description = "Cantidad disponible en stock", example = "50", minimum = "0")
     private Integer stock;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @Schema(description = "Version del producto; se incrementa en cada cambio (ETag y bloqueo optimista)",
+        example = "3", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     public Product() {}
 
     public Product(String name, Double price, Integer stock) {
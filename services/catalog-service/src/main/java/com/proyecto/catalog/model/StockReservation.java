@@ -0,0 +1,57 @@
+package com.proyecto.catalog.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linea de una reserva de stock. Una reserva con varios productos se guarda
+ * como varias filas con el mismo {@code reservationId}.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_reservation_id", columnList = "reservationId"),
+    @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expiresAt")
+})
+@Data
+@Schema(description = "Linea de reserva de stock")
+public class StockReservation {
+
+    public static final String RESERVED = "RESERVED";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String reservationId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    public StockReservation() {}
+
+    public StockReservation(String reservationId, Long productId, Integer quantity, LocalDateTime expiresAt) {
+        this.reservationId = reservationId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = RESERVED;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+}
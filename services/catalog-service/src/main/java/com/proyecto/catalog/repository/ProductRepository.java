@@ -2,6 +2,27 @@ package com.proyecto.catalog.repository;
 
 import com.proyecto.catalog.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * Descuenta stock de forma atomica solo si alcanza. Devuelve 0 si el
+     * producto no existe o no tiene stock suficiente.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.stock = p.stock - :quantity, p.version = p.version + 1 " +
+           "where p.id = :id and p.stock >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Devuelve stock (liberacion o expiracion de una reserva).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.stock = coalesce(p.stock, 0) + :quantity, p.version = p.version + 1 " +
+           "where p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,42 @@
+package com.proyecto.catalog.repository;
+
+import com.proyecto.catalog.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationId(String reservationId);
+
+    /**
+     * IDs de reservas vencidas que siguen reteniendo stock.
+     */
+    @Query("select distinct r.reservationId from StockReservation r " +
+           "where r.status = 'RESERVED' and r.expiresAt < :now")
+    List<String> findExpiredReservationIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Cambia de estado una reserva solo si sigue en RESERVED. Devuelve 0 si
+     * otra instancia u otra peticion ya la confirmo, libero o expiro.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :status " +
+           "where r.reservationId = :reservationId and r.status = 'RESERVED'")
+    int transitionFromReserved(@Param("reservationId") String reservationId, @Param("status") String status);
+
+    /**
+     * Confirma una reserva solo si sigue en RESERVED y no vencio. Una reserva
+     * vencida que el barrido todavia no libero no se puede confirmar: su stock
+     * tiene que volver al producto.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockReservation r set r.status = 'CONFIRMED' " +
+           "where r.reservationId = :reservationId and r.status = 'RESERVED' and r.expiresAt > :now")
+    int confirmIfActive(@Param("reservationId") String reservationId, @Param("now") LocalDateTime now);
+}
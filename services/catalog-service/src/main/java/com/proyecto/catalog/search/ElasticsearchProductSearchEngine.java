@@ -0,0 +1,278 @@
+package com.proyecto.catalog.search;
+
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.aggregations.RangeBucket;
+import co.elastic.clients.elasticsearch._types.mapping.FieldType;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ProductSearchPage;
+import com.proyecto.catalog.dto.SearchFacets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.query.HighlightQuery;
+import org.springframework.data.elasticsearch.core.query.highlight.Highlight;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightField;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightParameters;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Busquedas resueltas con una sola consulta bool de Elasticsearch: el texto
+ * va en contexto de query (afecta la relevancia) y los demas filtros en
+ * contexto de filtro, que Elasticsearch puede cachear y no calcula score.
+ */
+@Component
+public class ElasticsearchProductSearchEngine implements ProductSearchEngine {
+
+    /** Desempate numerico por id (subcampo long del keyword id). */
+    static final String ID_SORT_FIELD = "id.numeric";
+
+    /** Campo del indice para cada ordenamiento. */
+    private static final Map<String, String> SORT_FIELDS = Map.of(
+        "price", "price",
+        "stock", "stock",
+        "name", "name.keyword");
+    private static final String FACET_STATUS = "facet_stock_status";
+    private static final String FACET_PRICE = "facet_price";
+    private static final String FACET_VALUES = "values";
+    static final Query MATCH_ALL = Query.of(q -> q.matchAll(m -> m));
+
+    /** Nombre completo (sin cortar en fragmentos) con las coincidencias entre <em>. */
+    private static final HighlightQuery NAME_HIGHLIGHT = new HighlightQuery(new Highlight(
+        HighlightParameters.builder().withNumberOfFragments(0).withRequireFieldMatch(true).build(),
+        List.of(new HighlightField("name"), new HighlightField("name.ngram"))), ProductDocument.class);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final int trackTotalHitsUpTo;
+    private final List<AggregationRange> priceRanges;
+
+    public ElasticsearchProductSearchEngine(ElasticsearchOperations elasticsearchOperations,
+                                            @Value("${app.search.track-total-hits-up-to:10000}") int trackTotalHitsUpTo,
+                                            @Value("${app.search.facets.price-ranges:0-50,50-100,100-500,500-1000,1000-}") List<String> priceRanges) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+        this.priceRanges = PriceRange.parse(priceRanges).stream()
+            .map(range -> AggregationRange.of(r -> r.key(range.key()).from(range.from()).to(range.to())))
+            .toList();
+    }
+
+    @Override
+    public String name() {
+        return "elasticsearch";
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public ProductSearchPage search(ProductSearchCriteria criteria, String sort, String direction, int page, int size) {
+        NativeQueryBuilder query = NativeQuery.builder()
+            .withQuery(buildQuery(criteria))
+            .withSort(sortOptions(sort, direction))
+            .withPageable(PageRequest.of(page, size))
+            .withTrackTotalHitsUpTo(trackTotalHitsUpTo);
+        List<Object> searchAfter = criteria.getCursor() != null
+            ? SearchAfterCursor.decode(criteria.getCursor(), name(), sort, direction)
+            : null;
+        if (searchAfter != null) {
+            query.withSearchAfter(searchAfter);
+        }
+        if (criteria.isFacets()) {
+            addFacets(query, criteria);
+        }
+        boolean highlight = criteria.getQ() != null && !criteria.getQ().isBlank();
+        if (highlight) {
+            query.withHighlightQuery(NAME_HIGHLIGHT);
+        }
+
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(query.build(), ProductDocument.class);
+        List<ProductDocument> items = hits.getSearchHits().stream().map(SearchHit::getContent).toList();
+
+        String nextCursor = null;
+        if (items.size() == size) {
+            List<Object> lastSortValues = hits.getSearchHits().get(items.size() - 1).getSortValues();
+            nextCursor = SearchAfterCursor.encode(name(), sort, direction, lastSortValues);
+        }
+        String relation = hits.getTotalHitsRelation() == TotalHitsRelation.EQUAL_TO ? "eq" : "gte";
+        SearchFacets facets = hits.hasAggregations() ? readFacets(hits) : null;
+        Map<String, String> highlights = highlight ? readHighlights(hits) : null;
+        boolean cursorReset = criteria.getCursor() != null && searchAfter == null;
+        return new ProductSearchPage(items, hits.getTotalHits(), relation, page, size, nextCursor, facets, highlights,
+            cursorReset);
+    }
+
+    /**
+     * Nombre resaltado de cada resultado: el de name (palabras completas o con
+     * errores de tipeo) o, si no hubo, el de name.ngram (palabras incompletas).
+     */
+    private static Map<String, String> readHighlights(SearchHits<ProductDocument> hits) {
+        Map<String, String> highlights = new LinkedHashMap<>();
+        for (SearchHit<ProductDocument> hit : hits.getSearchHits()) {
+            List<String> fragments = hit.getHighlightField("name");
+            if (fragments.isEmpty()) {
+                fragments = hit.getHighlightField("name.ngram");
+            }
+            if (!fragments.isEmpty()) {
+                highlights.put(hit.getContent().getId(), fragments.get(0));
+            }
+        }
+        return highlights;
+    }
+
+    @Override
+    public List<ProductDocument> searchList(ProductSearchCriteria criteria, int maxResults) {
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(buildQuery(criteria))
+            .withSort(sortOptions("relevance", "desc"))
+            .withMaxResults(maxResults)
+            .build();
+        return elasticsearchOperations.search(query, ProductDocument.class).getSearchHits().stream()
+            .map(SearchHit::getContent)
+            .toList();
+    }
+
+    /**
+     * Arma la consulta bool con todos los criterios presentes.
+     */
+    Query buildQuery(ProductSearchCriteria criteria) {
+        return buildQuery(criteria, true);
+    }
+
+    /**
+     * @param withFacetFilters si es false se omiten los filtros de estado y
+     *                         precio, que con facetas van en el post_filter
+     */
+    private Query buildQuery(ProductSearchCriteria criteria, boolean withFacetFilters) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (criteria.getQ() != null && !criteria.getQ().isBlank()) {
+            String text = criteria.getQ().trim();
+            // Palabras completas (con hasta 2 errores de tipeo segun el largo) puntuan mas;
+            // name.ngram cubre las palabras incompletas ("lap" -> "laptop") sin comodines
+            bool.must(m -> m.bool(b -> b
+                .should(s -> s.match(mt -> mt.field("name").query(text).operator(Operator.And)
+                    .fuzziness("AUTO").prefixLength(1).maxExpansions(50).boost(3.0f)))
+                .should(s -> s.match(mt -> mt.field("name.ngram").query(text).operator(Operator.And)))
+                .minimumShouldMatch("1")));
+        }
+        Query status = statusFilter(criteria);
+        Query price = priceFilter(criteria);
+        if (withFacetFilters && status != null) {
+            bool.filter(status);
+        }
+        if (withFacetFilters && price != null) {
+            bool.filter(price);
+        }
+        if (criteria.getMinStock() != null || criteria.getMaxStock() != null) {
+            bool.filter(f -> f.range(r -> r.number(n -> n.field("stock")
+                .gte(criteria.getMinStock() != null ? criteria.getMinStock().doubleValue() : null)
+                .lte(criteria.getMaxStock() != null ? criteria.getMaxStock().doubleValue() : null))));
+        }
+        return Query.of(q -> q.bool(bool.build()));
+    }
+
+    private static Query statusFilter(ProductSearchCriteria criteria) {
+        if (criteria.getStatus() == null || criteria.getStatus().isBlank()) {
+            return null;
+        }
+        String status = criteria.getStatus().trim().toUpperCase();
+        return Query.of(f -> f.term(t -> t.field("stockStatus").value(status)));
+    }
+
+    private static Query priceFilter(ProductSearchCriteria criteria) {
+        if (criteria.getMinPrice() == null && criteria.getMaxPrice() == null) {
+            return null;
+        }
+        return Query.of(f -> f.range(r -> r.number(n -> n.field("price")
+            .gte(criteria.getMinPrice())
+            .lte(criteria.getMaxPrice()))));
+    }
+
+    /**
+     * Agrega las facetas a la consulta. Para que cada faceta cuente las
+     * opciones alternativas, los filtros de estado y precio pasan al
+     * post_filter (que solo afecta a los resultados) y cada agregacion aplica
+     * unicamente el filtro de la otra faceta.
+     */
+    private void addFacets(NativeQueryBuilder query, ProductSearchCriteria criteria) {
+        Query status = statusFilter(criteria);
+        Query price = priceFilter(criteria);
+        query.withQuery(buildQuery(criteria, false));
+        List<Query> postFilters = Stream.of(status, price).filter(Objects::nonNull).toList();
+        if (!postFilters.isEmpty()) {
+            query.withFilter(Query.of(q -> q.bool(b -> b.filter(postFilters))));
+        }
+        query.withAggregation(FACET_STATUS, Aggregation.of(a -> a
+            .filter(price != null ? price : MATCH_ALL)
+            .aggregations(FACET_VALUES, sub -> sub.terms(t -> t.field("stockStatus").size(STOCK_STATUSES.size())))));
+        query.withAggregation(FACET_PRICE, Aggregation.of(a -> a
+            .filter(status != null ? status : MATCH_ALL)
+            .aggregations(FACET_VALUES, sub -> sub.range(r -> r.field("price").ranges(priceRanges)))));
+    }
+
+    private static SearchFacets readFacets(SearchHits<ProductDocument> hits) {
+        Map<String, ElasticsearchAggregation> aggregations =
+            ((ElasticsearchAggregations) hits.getAggregations()).aggregationsAsMap();
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        STOCK_STATUSES.stream().sorted().forEach(status -> byStatus.put(status, 0L));
+        Aggregate status = aggregate(aggregations, FACET_STATUS);
+        if (status != null) {
+            status.filter().aggregations().get(FACET_VALUES).sterms().buckets().array()
+                .forEach(b -> byStatus.put(b.key().stringValue(), b.docCount()));
+        }
+        List<SearchFacets.Bucket> statusBuckets = byStatus.entrySet().stream()
+            .map(e -> new SearchFacets.Bucket(e.getKey(), null, null, e.getValue()))
+            .toList();
+
+        List<SearchFacets.Bucket> priceBuckets = new ArrayList<>();
+        Aggregate price = aggregate(aggregations, FACET_PRICE);
+        if (price != null) {
+            for (RangeBucket bucket : price.filter().aggregations().get(FACET_VALUES).range().buckets().array()) {
+                priceBuckets.add(new SearchFacets.Bucket(bucket.key(), bucket.from(), bucket.to(), bucket.docCount()));
+            }
+        }
+        return new SearchFacets(statusBuckets, priceBuckets);
+    }
+
+    static Aggregate aggregate(Map<String, ElasticsearchAggregation> aggregations, String name) {
+        ElasticsearchAggregation aggregation = aggregations.get(name);
+        return aggregation != null ? aggregation.aggregation().getAggregate() : null;
+    }
+
+    /**
+     * Orden principal mas desempate por id, requerido para que search_after sea estable.
+     * El desempate usa id.numeric (long) y no el keyword id, para que "9" quede
+     * antes que "10" igual que en el indice en memoria.
+     */
+    static List<SortOptions> sortOptions(String sort, String direction) {
+        SortOrder order = "desc".equals(direction) ? SortOrder.Desc : SortOrder.Asc;
+        SortOptions primary = "relevance".equals(sort)
+            ? SortOptions.of(s -> s.score(sc -> sc.order(SortOrder.Desc)))
+            : SortOptions.of(s -> s.field(f -> f.field(SORT_FIELDS.get(sort)).order(order)));
+        SortOptions tieBreaker = SortOptions.of(s -> s.field(f -> f.field(ID_SORT_FIELD).order(SortOrder.Asc)
+            .unmappedType(FieldType.Long)));
+        return List.of(primary, tieBreaker);
+    }
+}
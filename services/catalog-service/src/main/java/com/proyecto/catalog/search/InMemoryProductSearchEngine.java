@@ -0,0 +1,941 @@
+package com.proyecto.catalog.search;
+
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ProductSearchPage;
+import com.proyecto.catalog.dto.SearchFacets;
+import com.proyecto.catalog.service.CatalogService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de busqueda dentro del proceso, alternativo a Elasticsearch y
+ * respaldo cuando este no responde.
+ *
+ * - Indice invertido sobre el nombre: tokens separados por cualquier caracter
+ *   que no sea letra o digito, en minusculas y sin acentos, como el analizador
+ *   product_name. Cada palabra buscada debe coincidir con el comienzo de alguna
+ *   palabra del nombre ("lap hp" encuentra "Laptop HP Pavilion"), como
+ *   name.ngram; a diferencia de Elasticsearch no tolera errores de tipeo.
+ * - Indices ordenados por precio, stock y nombre (TreeMap de valor a IDs),
+ *   que sirven para los rangos y para recorrer los resultados ya ordenados
+ *   sin ordenar todo el catalogo.
+ *
+ * Cada consulta parte del conjunto de IDs mas chico entre el texto, el estado
+ * y los rangos, y verifica el resto de los criterios documento por documento.
+ * Se carga desde PostgreSQL al arrancar y se mantiene con las mismas
+ * escrituras que Elasticsearch ({@link ProductIndexManager}).
+ */
+@Component
+public class InMemoryProductSearchEngine implements ProductSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryProductSearchEngine.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TOKEN_LENGTH = 255;
+
+    /**
+     * Por encima de esta cantidad de candidatos conviene recorrer el indice
+     * del ordenamiento y cortar al completar la pagina en vez de ordenarlos.
+     */
+    private static final int SORT_CANDIDATES_LIMIT = 20_000;
+
+    private final CatalogService catalogService;
+    private final boolean enabled;
+    private final int loadBatchSize;
+    private final Duration loadMaxBackoff;
+    private final int trackTotalHitsUpTo;
+    private final List<PriceRange> priceRanges;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Indexed> documents = new TreeMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Postings> byStatus = new HashMap<>();
+    private final SortedIndex<Double> byPrice = new SortedIndex<>();
+    private final SortedIndex<Long> byStock = new SortedIndex<>();
+    private final SortedIndex<String> byName = new SortedIndex<>();
+
+    private final Set<Long> touchedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    public InMemoryProductSearchEngine(CatalogService catalogService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.search.engine:elasticsearch}") String engine,
+                                       @Value("${app.search.memory.enabled:true}") boolean enabled,
+                                       @Value("${app.search.memory.load-batch-size:1000}") int loadBatchSize,
+                                       @Value("${app.search.memory.load-max-backoff:60s}") Duration loadMaxBackoff,
+                                       @Value("${app.search.track-total-hits-up-to:10000}") int trackTotalHitsUpTo,
+                                       @Value("${app.search.facets.price-ranges:0-50,50-100,100-500,500-1000,1000-}") List<String> priceRanges) {
+        this.catalogService = catalogService;
+        this.enabled = enabled || "memory".equalsIgnoreCase(engine);
+        this.loadBatchSize = loadBatchSize;
+        this.loadMaxBackoff = loadMaxBackoff;
+        this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+        this.priceRanges = PriceRange.parse(priceRanges);
+
+        Gauge.builder("search.memory.documents", this, InMemoryProductSearchEngine::size)
+            .description("Productos en el indice de busqueda en memoria")
+            .register(meterRegistry);
+        Gauge.builder("search.memory.ready", this, e -> e.ready ? 1.0 : 0.0)
+            .description("1 si el indice en memoria termino de cargarse")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ========================================
+    // Carga y escrituras
+    // ========================================
+
+    /**
+     * Carga todos los productos en segundo plano, en lotes keyset por ID. Las
+     * escrituras que llegan mientras tanto ganan sobre lo leido en la carga.
+     * Si la carga falla (p. ej. PostgreSQL no responde al arrancar) se reintenta
+     * con backoff exponencial hasta app.search.memory.load-max-backoff, sin
+     * descartar lo ya cargado: hasta terminar el indice no esta listo y las
+     * busquedas van solo a Elasticsearch.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            loading = true;
+            try {
+                for (int attempt = 1; !Thread.currentThread().isInterrupted(); attempt++) {
+                    long start = System.nanoTime();
+                    try {
+                        loadAll();
+                        ready = true;
+                        log.info("Indice de busqueda en memoria cargado: {} productos en {} ms",
+                            size(), (System.nanoTime() - start) / 1_000_000);
+                        return;
+                    } catch (Exception e) {
+                        long backoff = Math.min(loadMaxBackoff.toMillis(), 1000L << Math.min(attempt - 1, 16));
+                        log.error("No se pudo cargar el indice de busqueda en memoria (intento {}), reintento en {} ms: {}",
+                            attempt, backoff, e.getMessage());
+                        Thread.sleep(backoff);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                loading = false;
+                touchedDuringLoad.clear();
+            }
+        }, "search-memory-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadAll() {
+        List<ProductDocument> batch = new ArrayList<>(loadBatchSize);
+        catalogService.streamProducts("id", "asc", loadBatchSize, product -> {
+            batch.add(ProductDocument.fromProduct(product));
+            if (batch.size() == loadBatchSize) {
+                applyLoaded(batch);
+                batch.clear();
+            }
+        });
+        applyLoaded(batch);
+    }
+
+    private void applyLoaded(List<ProductDocument> batch) {
+        lock.writeLock().lock();
+        try {
+            for (ProductDocument doc : batch) {
+                long id = Long.parseLong(doc.getId());
+                if (!touchedDuringLoad.contains(id)) {
+                    put(id, doc);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Collection<ProductDocument> docs) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProductDocument doc : docs) {
+                long id = Long.parseLong(doc.getId());
+                if (loading) {
+                    touchedDuringLoad.add(id);
+                }
+                put(id, doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Collection<String> ids) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String value : ids) {
+                long id = Long.parseLong(value);
+                if (loading) {
+                    touchedDuringLoad.add(id);
+                }
+                remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            terms.clear();
+            byStatus.clear();
+            byPrice.clear();
+            byStock.clear();
+            byName.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(long id, ProductDocument doc) {
+        remove(id);
+        List<String> tokens = tokenize(doc.getName());
+        documents.put(id, new Indexed(doc, tokens));
+        for (String token : tokens) {
+            terms.computeIfAbsent(token, t -> new Postings()).add(id);
+        }
+        if (doc.getStockStatus() != null) {
+            byStatus.computeIfAbsent(doc.getStockStatus(), s -> new Postings()).add(id);
+        }
+        byPrice.add(doc.getPrice(), id);
+        byStock.add(stockOf(doc), id);
+        byName.add(doc.getName(), id);
+    }
+
+    private void remove(long id) {
+        Indexed removed = documents.remove(id);
+        if (removed == null) {
+            return;
+        }
+        ProductDocument old = removed.doc();
+        for (String token : removed.tokens()) {
+            Postings postings = terms.get(token);
+            if (postings != null && postings.remove(id) && postings.size() == 0) {
+                terms.remove(token);
+            }
+        }
+        if (old.getStockStatus() != null) {
+            Postings postings = byStatus.get(old.getStockStatus());
+            if (postings != null) {
+                postings.remove(id);
+            }
+        }
+        byPrice.remove(old.getPrice(), id);
+        byStock.remove(stockOf(old), id);
+        byName.remove(old.getName(), id);
+    }
+
+    // ========================================
+    // Consultas
+    // ========================================
+
+    @Override
+    public ProductSearchPage search(ProductSearchCriteria criteria, String sort, String direction, int page, int size) {
+        List<Object> cursorValues = criteria.getCursor() != null
+            ? SearchAfterCursor.decode(criteria.getCursor(), name(), sort, direction)
+            : null;
+        Hit after = cursorValues != null ? cursorHit(sort, cursorValues) : null;
+        boolean cursorReset = criteria.getCursor() != null && cursorValues == null;
+        Comparator<Hit> order = comparator(sort, direction);
+        Query query = new Query(criteria, true, true);
+        int skip = page * size;
+
+        lock.readLock().lock();
+        try {
+            Candidates candidates = candidates(query);
+            List<Hit> items = new ArrayList<>(size);
+            long total;
+            boolean exact;
+            if (candidates.size() <= SORT_CANDIDATES_LIMIT || query.tokens.length > 0) {
+                // Pocos candidatos (o hace falta el score): se filtran todos y se
+                // conservan solo los mejores skip + size en un heap acotado
+                int limit = skip + size;
+                PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, order.reversed());
+                long[] matched = {0};
+                candidates.forEach(id -> {
+                    Indexed indexed = documents.get(id);
+                    if (indexed == null || !query.test(indexed)) {
+                        return;
+                    }
+                    matched[0]++;
+                    Hit hit = hit(sort, id, indexed, query);
+                    if ((after == null || order.compare(hit, after) > 0)
+                        && (top.size() < limit || order.compare(hit, top.peek()) < 0)) {
+                        top.add(hit);
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                });
+                total = matched[0];
+                exact = true;
+                List<Hit> best = new ArrayList<>(top);
+                best.sort(order);
+                for (int i = skip; i < best.size(); i++) {
+                    items.add(best.get(i));
+                }
+            } else {
+                // Muchos candidatos: se recorre el indice del ordenamiento y se corta con la pagina
+                PrimitiveIterator.OfLong ids = orderedIds(sort, direction, after);
+                int matched = 0;
+                while (ids.hasNext() && items.size() < size) {
+                    long id = ids.nextLong();
+                    Indexed indexed = documents.get(id);
+                    if (indexed == null || !query.test(indexed)) {
+                        continue;
+                    }
+                    Hit hit = hit(sort, id, indexed, query);
+                    if (after != null && order.compare(hit, after) <= 0) {
+                        continue;
+                    }
+                    if (matched++ >= skip) {
+                        items.add(hit);
+                    }
+                }
+                long[] counted = count(query, candidates);
+                total = counted[0];
+                exact = counted[1] == 1;
+            }
+
+            String nextCursor = null;
+            if (items.size() == size) {
+                Hit last = items.get(items.size() - 1);
+                List<Object> sortValues = new ArrayList<>();
+                sortValues.add(last.primary());
+                sortValues.add(last.id());
+                nextCursor = SearchAfterCursor.encode(name(), sort, direction, sortValues);
+            }
+            SearchFacets facets = criteria.isFacets() ? facets(criteria) : null;
+            return new ProductSearchPage(items.stream().map(Hit::doc).toList(), total, exact ? "eq" : "gte",
+                page, size, nextCursor, facets, null, cursorReset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ProductDocument> searchList(ProductSearchCriteria criteria, int maxResults) {
+        ProductSearchCriteria relevance = new ProductSearchCriteria();
+        relevance.setQ(criteria.getQ());
+        relevance.setStatus(criteria.getStatus());
+        relevance.setMinPrice(criteria.getMinPrice());
+        relevance.setMaxPrice(criteria.getMaxPrice());
+        relevance.setMinStock(criteria.getMinStock());
+        relevance.setMaxStock(criteria.getMaxStock());
+        return search(relevance, "relevance", "desc", 0, maxResults).getItems();
+    }
+
+    /**
+     * Cuenta coincidencias hasta app.search.track-total-hits-up-to, como Elasticsearch.
+     *
+     * @return {total, 1 si es exacto o 0 si es un minimo}
+     */
+    private long[] count(Query query, Candidates candidates) {
+        if (query.isEmpty()) {
+            return new long[] {documents.size(), 1};
+        }
+        long[] total = {0};
+        boolean complete = candidates.forEachUntil(id -> {
+            Indexed indexed = documents.get(id);
+            if (indexed != null && query.test(indexed)) {
+                total[0]++;
+            }
+            return total[0] < trackTotalHitsUpTo;
+        });
+        return new long[] {total[0], complete ? 1 : 0};
+    }
+
+    /**
+     * Facetas con la misma semantica que en Elasticsearch: cada una aplica
+     * todos los filtros salvo el suyo.
+     */
+    private SearchFacets facets(ProductSearchCriteria criteria) {
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        STOCK_STATUSES.stream().sorted().forEach(status -> statusCounts.put(status, 0L));
+        Query withoutStatus = new Query(criteria, false, true);
+        if (withoutStatus.isEmpty()) {
+            byStatus.forEach((status, postings) -> statusCounts.put(status, (long) postings.size()));
+        } else {
+            candidates(withoutStatus).forEach(id -> {
+                Indexed indexed = documents.get(id);
+                if (indexed != null && withoutStatus.test(indexed) && indexed.doc().getStockStatus() != null) {
+                    statusCounts.merge(indexed.doc().getStockStatus(), 1L, Long::sum);
+                }
+            });
+        }
+
+        long[] priceCounts = new long[priceRanges.size()];
+        Query withoutPrice = new Query(criteria, true, false);
+        if (withoutPrice.isEmpty()) {
+            for (int i = 0; i < priceRanges.size(); i++) {
+                PriceRange range = priceRanges.get(i);
+                priceCounts[i] = byPrice.countRange(range.from(), true, range.to(), false);
+            }
+        } else {
+            candidates(withoutPrice).forEach(id -> {
+                Indexed indexed = documents.get(id);
+                if (indexed != null && withoutPrice.test(indexed)) {
+                    for (int i = 0; i < priceRanges.size(); i++) {
+                        if (priceRanges.get(i).contains(indexed.doc().getPrice())) {
+                            priceCounts[i]++;
+                        }
+                    }
+                }
+            });
+        }
+
+        List<SearchFacets.Bucket> statusBuckets = statusCounts.entrySet().stream()
+            .map(e -> new SearchFacets.Bucket(e.getKey(), null, null, e.getValue()))
+            .toList();
+        List<SearchFacets.Bucket> priceBuckets = new ArrayList<>();
+        for (int i = 0; i < priceRanges.size(); i++) {
+            PriceRange range = priceRanges.get(i);
+            priceBuckets.add(new SearchFacets.Bucket(range.key(), range.from(), range.to(), priceCounts[i]));
+        }
+        return new SearchFacets(statusBuckets, priceBuckets);
+    }
+
+    /**
+     * Elige el conjunto de partida mas chico entre el texto, el estado y los rangos.
+     */
+    private Candidates candidates(Query query) {
+        Candidates best = Candidates.ofIds(documents.keySet(), documents.size());
+        if (query.tokens.length > 0) {
+            String driver = null;
+            long driverSize = Long.MAX_VALUE;
+            for (String token : query.tokens) {
+                long expansion = 0;
+                for (Postings postings : prefixTerms(token).values()) {
+                    expansion += postings.size();
+                    if (expansion >= driverSize) {
+                        break;
+                    }
+                }
+                if (expansion < driverSize) {
+                    driver = token;
+                    driverSize = expansion;
+                }
+            }
+            long[] ids = union(prefixTerms(driver).values());
+            best = Candidates.ofIds(ids, ids.length);
+        }
+        if (query.status != null) {
+            Postings postings = byStatus.getOrDefault(query.status, new Postings());
+            if (postings.size() < best.size()) {
+                best = Candidates.ofPostings(List.of(postings), postings.size());
+            }
+        }
+        if (query.minPrice != null || query.maxPrice != null) {
+            best = smaller(best, byPrice, query.minPrice, query.maxPrice);
+        }
+        if (query.minStock != null || query.maxStock != null) {
+            best = smaller(best, byStock, query.minStock, query.maxStock);
+        }
+        return best;
+    }
+
+    private static <K extends Comparable<K>> Candidates smaller(Candidates best, SortedIndex<K> index, K min, K max) {
+        NavigableMap<K, Postings> range = index.range(min, true, max, true);
+        long size = 0;
+        for (Postings postings : range.values()) {
+            size += postings.size();
+            if (size >= best.size()) {
+                return best;
+            }
+        }
+        return Candidates.ofPostings(range.values(), size);
+    }
+
+    private NavigableMap<String, Postings> prefixTerms(String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static long[] union(Collection<Postings> lists) {
+        int total = 0;
+        for (Postings postings : lists) {
+            total += postings.size();
+        }
+        long[] ids = new long[total];
+        int offset = 0;
+        for (Postings postings : lists) {
+            offset = postings.copyTo(ids, offset);
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    /**
+     * IDs en el orden de la consulta: por ID para relevance sin texto, o por el
+     * indice del campo (sin valor al final, desempate por ID), desde el cursor.
+     */
+    private PrimitiveIterator.OfLong orderedIds(String sort, String direction, Hit after) {
+        boolean descending = "desc".equals(direction);
+        return switch (sort) {
+            case "price" -> byPrice.ids(descending, after != null ? (Double) after.primary() : null, after != null);
+            case "stock" -> byStock.ids(descending, after != null ? (Long) after.primary() : null, after != null);
+            case "name" -> byName.ids(descending, after != null ? (String) after.primary() : null, after != null);
+            default -> {
+                Iterator<Long> ids = (after != null ? documents.tailMap(after.id(), false) : documents).keySet().iterator();
+                yield longIterator(ids);
+            }
+        };
+    }
+
+    private static Hit hit(String sort, long id, Indexed indexed, Query query) {
+        ProductDocument doc = indexed.doc();
+        Comparable<?> primary = switch (sort) {
+            case "price" -> doc.getPrice();
+            case "stock" -> stockOf(doc);
+            case "name" -> doc.getName();
+            default -> query.score(indexed);
+        };
+        return new Hit(doc, id, primary);
+    }
+
+    private static Hit cursorHit(String sort, List<Object> values) {
+        Object primary = values.get(0);
+        long id;
+        try {
+            id = Long.parseLong(String.valueOf(values.get(values.size() - 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+        Comparable<?> value;
+        if (primary == null) {
+            value = null;
+        } else if ("name".equals(sort)) {
+            value = String.valueOf(primary);
+        } else if (primary instanceof Number number) {
+            value = "stock".equals(sort) ? (Comparable<?>) number.longValue() : (Comparable<?>) number.doubleValue();
+        } else {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+        return new Hit(null, id, value);
+    }
+
+    /**
+     * Mismo orden que Elasticsearch: relevance siempre descendente, documentos
+     * sin valor al final en ambas direcciones y desempate por ID numerico
+     * ascendente (id.numeric en Elasticsearch). El score de relevance es propio
+     * de este indice, por eso su cursor no sirve en el otro motor (vuelve a la primera pagina).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Hit> comparator(String sort, String direction) {
+        Comparator<Comparable> values = "relevance".equals(sort) || "desc".equals(direction)
+            ? Comparator.reverseOrder()
+            : Comparator.naturalOrder();
+        Comparator<Hit> primary = Comparator.comparing(hit -> (Comparable) hit.primary(), Comparator.nullsLast(values));
+        return primary.thenComparingLong(Hit::id);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : TOKEN_SEPARATOR.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static Long stockOf(ProductDocument doc) {
+        return doc.getStock() != null ? doc.getStock().longValue() : null;
+    }
+
+    private static PrimitiveIterator.OfLong longIterator(Iterator<Long> ids) {
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return ids.next();
+            }
+        };
+    }
+
+    /**
+     * Documento con los tokens de su nombre, para no volver a separarlos en cada consulta.
+     */
+    private record Indexed(ProductDocument doc, List<String> tokens) {}
+
+    /**
+     * Resultado con el valor de orden principal (score, precio, stock o nombre).
+     */
+    private record Hit(ProductDocument doc, long id, Comparable<?> primary) {}
+
+    /**
+     * Criterios de una consulta ya normalizados. Los filtros de estado y precio
+     * se pueden excluir para calcular las facetas.
+     */
+    private static final class Query implements Predicate<Indexed> {
+
+        final String[] tokens;
+        final String status;
+        final Double minPrice;
+        final Double maxPrice;
+        final Long minStock;
+        final Long maxStock;
+
+        Query(ProductSearchCriteria criteria, boolean withStatus, boolean withPrice) {
+            this.tokens = tokenize(criteria.getQ()).toArray(String[]::new);
+            this.status = withStatus && criteria.getStatus() != null && !criteria.getStatus().isBlank()
+                ? criteria.getStatus().trim().toUpperCase() : null;
+            this.minPrice = withPrice ? criteria.getMinPrice() : null;
+            this.maxPrice = withPrice ? criteria.getMaxPrice() : null;
+            this.minStock = criteria.getMinStock() != null ? criteria.getMinStock().longValue() : null;
+            this.maxStock = criteria.getMaxStock() != null ? criteria.getMaxStock().longValue() : null;
+        }
+
+        boolean isEmpty() {
+            return tokens.length == 0 && status == null && minPrice == null && maxPrice == null
+                && minStock == null && maxStock == null;
+        }
+
+        @Override
+        public boolean test(Indexed indexed) {
+            ProductDocument doc = indexed.doc();
+            if (status != null && !status.equals(doc.getStockStatus())) {
+                return false;
+            }
+            if ((minPrice != null || maxPrice != null) && !inRange(doc.getPrice(), minPrice, maxPrice)) {
+                return false;
+            }
+            if ((minStock != null || maxStock != null) && !inRange(stockOf(doc), minStock, maxStock)) {
+                return false;
+            }
+            if (tokens.length == 0) {
+                return true;
+            }
+            List<String> docTokens = indexed.tokens();
+            for (String token : tokens) {
+                if (docTokens.stream().noneMatch(t -> t.startsWith(token))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Dos puntos por palabra exacta y uno por prefijo; sin texto todos valen 0.
+         */
+        Double score(Indexed indexed) {
+            if (tokens.length == 0) {
+                return 0.0;
+            }
+            List<String> docTokens = indexed.tokens();
+            double score = 0;
+            for (String token : tokens) {
+                score += docTokens.contains(token) ? 2 : 1;
+            }
+            return score;
+        }
+
+        private static <T extends Comparable<T>> boolean inRange(T value, T min, T max) {
+            return value != null && (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+        }
+    }
+
+    /**
+     * Conjunto de IDs de partida con su tamano estimado.
+     */
+    private interface Candidates {
+
+        long size();
+
+        /**
+         * Recorre los IDs mientras la funcion devuelva true.
+         *
+         * @return true si se recorrieron todos
+         */
+        boolean forEachUntil(LongPredicate action);
+
+        default void forEach(LongConsumer action) {
+            forEachUntil(id -> {
+                action.accept(id);
+                return true;
+            });
+        }
+
+        static Candidates ofIds(Collection<Long> ids, long size) {
+            return new Candidates() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public boolean forEachUntil(LongPredicate action) {
+                    for (Long id : ids) {
+                        if (!action.test(id)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            };
+        }
+
+        static Candidates ofIds(long[] ids, long size) {
+            return new Candidates() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public boolean forEachUntil(LongPredicate action) {
+                    for (long id : ids) {
+                        if (!action.test(id)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            };
+        }
+
+        static Candidates ofPostings(Iterable<Postings> lists, long size) {
+            return new Candidates() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public boolean forEachUntil(LongPredicate action) {
+                    for (Postings postings : lists) {
+                        for (int i = 0; i < postings.size(); i++) {
+                            if (!action.test(postings.get(i))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * Lista ordenada de IDs sin repetidos.
+     */
+    static final class Postings {
+
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        int copyTo(long[] target, int offset) {
+            System.arraycopy(ids, 0, target, offset, size);
+            return offset + size;
+        }
+    }
+
+    /**
+     * Indice ordenado de un campo: valor a IDs, mas los documentos sin valor.
+     */
+    static final class SortedIndex<K extends Comparable<K>> {
+
+        private final TreeMap<K, Postings> values = new TreeMap<>();
+        private final Postings missing = new Postings();
+
+        void add(K key, long id) {
+            if (key == null) {
+                missing.add(id);
+            } else {
+                values.computeIfAbsent(key, k -> new Postings()).add(id);
+            }
+        }
+
+        void remove(K key, long id) {
+            if (key == null) {
+                missing.remove(id);
+                return;
+            }
+            Postings postings = values.get(key);
+            if (postings != null && postings.remove(id) && postings.size() == 0) {
+                values.remove(key);
+            }
+        }
+
+        void clear() {
+            values.clear();
+            while (missing.size() > 0) {
+                missing.remove(missing.get(0));
+            }
+        }
+
+        NavigableMap<K, Postings> range(K min, boolean minInclusive, K max, boolean maxInclusive) {
+            if (min != null && max != null) {
+                return min.compareTo(max) > 0 ? new TreeMap<>() : values.subMap(min, minInclusive, max, maxInclusive);
+            }
+            if (min != null) {
+                return values.tailMap(min, minInclusive);
+            }
+            return max != null ? values.headMap(max, maxInclusive) : values;
+        }
+
+        long countRange(K min, boolean minInclusive, K max, boolean maxInclusive) {
+            long count = 0;
+            for (Postings postings : range(min, minInclusive, max, maxInclusive).values()) {
+                count += postings.size();
+            }
+            return count;
+        }
+
+        /**
+         * IDs ordenados por valor (asc o desc) y por ID dentro de cada valor,
+         * con los documentos sin valor al final.
+         *
+         * @param from   valor desde el que empezar (incluido); null para empezar por el principio
+         * @param resume true si se continua desde un cursor: con from null solo quedan los sin valor
+         */
+        PrimitiveIterator.OfLong ids(boolean descending, K from, boolean resume) {
+            NavigableMap<K, Postings> ordered = descending ? values.descendingMap() : values;
+            Iterable<Postings> lists;
+            if (resume && from == null) {
+                lists = List.of(missing);
+            } else {
+                NavigableMap<K, Postings> start = from != null ? ordered.tailMap(from, true) : ordered;
+                List<Postings> all = new ArrayList<>(start.size() + 1);
+                all.addAll(start.values());
+                all.add(missing);
+                lists = all;
+            }
+            Iterator<Postings> it = lists.iterator();
+            return new PrimitiveIterator.OfLong() {
+                private Postings current;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    while ((current == null || index >= current.size()) && it.hasNext()) {
+                        current = it.next();
+                        index = 0;
+                    }
+                    return current != null && index < current.size();
+                }
+
+                @Override
+                public long nextLong() {
+                    return current.get(index++);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.proyecto.catalog.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rango de precio de la faceta: desde incluido, hasta excluido; null si no tiene limite.
+ */
+record PriceRange(String key, Double from, Double to) {
+
+    boolean contains(Double price) {
+        return price != null && (from == null || price >= from) && (to == null || price < to);
+    }
+
+    /**
+     * Convierte rangos "desde-hasta" (cualquiera de los dos puede faltar).
+     *
+     * @throws IllegalArgumentException si algun rango no tiene ese formato
+     */
+    static List<PriceRange> parse(List<String> ranges) {
+        List<PriceRange> parsed = new ArrayList<>();
+        for (String range : ranges) {
+            String[] bounds = range.trim().split("-", -1);
+            if (bounds.length != 2 || (bounds[0].isBlank() && bounds[1].isBlank())) {
+                throw new IllegalArgumentException("Rango de precio invalido en app.search.facets.price-ranges: " + range);
+            }
+            Double from = bounds[0].isBlank() ? null : Double.valueOf(bounds[0].trim());
+            Double to = bounds[1].isBlank() ? null : Double.valueOf(bounds[1].trim());
+            parsed.add(new PriceRange(range.trim(), from, to));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,116 @@
+package com.proyecto.catalog.search;
+
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import com.proyecto.catalog.document.ProductDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Exporta todo el indice de productos (o los que cumplen los filtros) por
+ * paginas de tamano fijo, sin limite de ventana de resultados.
+ *
+ * Abre un point-in-time sobre el alias para que el recorrido vea una foto fija
+ * del indice aunque haya escrituras o un cambio de alias en el medio, y avanza
+ * con search_after ordenando por id. Cada pagina se entrega al consumidor
+ * antes de pedir la siguiente, asi que la memoria no depende del tamano del
+ * indice. Para retomar un recorrido cortado alcanza con el ultimo id recibido.
+ */
+@Service
+public class ProductIndexExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexExporter.class);
+
+    private static final List<SortOptions> ID_ORDER =
+        List.of(SortOptions.of(s -> s.field(f -> f.field("id").order(SortOrder.Asc))));
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchProductSearchEngine elasticsearchEngine;
+    private final IndexCoordinates alias;
+    private final int pageSize;
+    private final Duration keepAlive;
+    private final Counter exported;
+
+    public ProductIndexExporter(ElasticsearchOperations elasticsearchOperations,
+                                ElasticsearchProductSearchEngine elasticsearchEngine,
+                                ProductIndexManager indexManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.search.export.page-size:1000}") int pageSize,
+                                @Value("${app.search.export.keep-alive:1m}") Duration keepAlive) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchEngine = elasticsearchEngine;
+        this.alias = IndexCoordinates.of(indexManager.getAliasName());
+        this.pageSize = pageSize;
+        this.keepAlive = keepAlive;
+        this.exported = Counter.builder("search.export.documents")
+            .description("Documentos entregados por la exportacion del indice")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Recorre los documentos en orden de id y entrega cada pagina al consumidor.
+     *
+     * @param criteria filtros opcionales (texto, estado, precio y stock); se ignoran orden y paginacion
+     * @param afterId  ultimo id recibido en un recorrido anterior, o null para empezar desde el principio
+     * @return cantidad de documentos entregados
+     */
+    public long export(ProductSearchCriteria criteria, String afterId, Consumer<List<ProductDocument>> pageConsumer) {
+        long start = System.nanoTime();
+        long total = 0;
+        String pitId = elasticsearchOperations.openPointInTime(alias, keepAlive);
+        try {
+            List<Object> searchAfter = afterId != null ? List.of(afterId) : null;
+            while (true) {
+                NativeQueryBuilder query = NativeQuery.builder()
+                    .withQuery(elasticsearchEngine.buildQuery(criteria))
+                    .withSort(ID_ORDER)
+                    .withMaxResults(pageSize)
+                    .withTrackTotalHits(false)
+                    .withPointInTime(new Query.PointInTime(pitId, keepAlive));
+                if (searchAfter != null) {
+                    query.withSearchAfter(searchAfter);
+                }
+                SearchHits<ProductDocument> hits = elasticsearchOperations.search(query.build(), ProductDocument.class);
+                // Elasticsearch puede devolver un id de point-in-time nuevo en cada respuesta
+                if (hits.getPointInTimeId() != null) {
+                    pitId = hits.getPointInTimeId();
+                }
+                List<SearchHit<ProductDocument>> page = hits.getSearchHits();
+                if (page.isEmpty()) {
+                    break;
+                }
+                pageConsumer.accept(page.stream().map(SearchHit::getContent).toList());
+                total += page.size();
+                exported.increment(page.size());
+                if (page.size() < pageSize) {
+                    break;
+                }
+                searchAfter = page.get(page.size() - 1).getSortValues();
+            }
+        } finally {
+            try {
+                elasticsearchOperations.closePointInTime(pitId);
+            } catch (Exception e) {
+                log.warn("No se pudo cerrar el point-in-time de la exportacion: {}", e.getMessage());
+            }
+        }
+        log.info("Exportacion del indice terminada: {} documentos en {} ms",
+            total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+}
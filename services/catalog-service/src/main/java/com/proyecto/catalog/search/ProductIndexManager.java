@@ -0,0 +1,357 @@
+package com.proyecto.catalog.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.proyecto.catalog.document.ProductDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.DeleteQuery;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Administra los indices fisicos de productos detras del alias "products".
+ *
+ * Las busquedas y escrituras usan siempre el alias (el indexName de
+ * {@link ProductDocument}). Cada reindexacion completa escribe en un indice
+ * nuevo "products-v{fecha}" y al terminar mueve el alias en una sola operacion
+ * atomica, sin dejar la busqueda vacia.
+ *
+ * Las escrituras en el alias esperan a que el refresco del indice las haga
+ * visibles antes de incrementar la {@link SearchIndexGeneration}: la cache de
+ * resultados nunca guarda con la generacion nueva un resultado que no las incluya.
+ *
+ * Mientras hay una reindexacion en curso, las escrituras incrementales se
+ * duplican en el indice nuevo y se registran sus IDs, para que la
+ * reindexacion los vuelva a copiar antes del cambio de alias. El indice
+ * destino y los IDs viven en Redis, asi que todas las instancias duplican sus
+ * escrituras aunque la reindexacion corra en otra. El destino tiene un lease
+ * que renueva la reindexacion: si la instancia que la ejecuta se cae, las
+ * demas dejan de duplicar al vencer.
+ */
+@Component
+public class ProductIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexManager.class);
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final String REINDEX_TARGET_KEY = "search:reindex:target";
+    private static final String REINDEX_TOUCHED_KEY = "search:reindex:touched";
+
+    /** IDs que se sacan del set por llamada al vaciarlo. */
+    private static final int DRAIN_BATCH = 1000;
+
+    // Toma el destino solo si no hay otra reindexacion y limpia los IDs de una anterior
+    private static final RedisScript<Long> BEGIN_DUAL_WRITE = RedisScript.of(
+        "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+        "redis.call('del', KEYS[2]) return 1 end " +
+        "return 0",
+        Long.class);
+
+    private static final RedisScript<Long> RENEW_DUAL_WRITE = RedisScript.of(
+        "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "redis.call('pexpire', KEYS[2], ARGV[2]) " +
+        "return 1",
+        Long.class);
+
+    private static final RedisScript<Long> END_DUAL_WRITE = RedisScript.of(
+        "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+        "return redis.call('del', KEYS[1], KEYS[2])",
+        Long.class);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchOperations visibleWrites;
+    private final ElasticsearchClient elasticsearchClient;
+    private final SearchIndexGeneration generation;
+    private final InMemoryProductSearchEngine memoryEngine;
+    private final StringRedisTemplate redisTemplate;
+    private final IndexCoordinates alias;
+    private final Duration reindexLease;
+
+    public ProductIndexManager(ElasticsearchOperations elasticsearchOperations,
+                               ElasticsearchClient elasticsearchClient,
+                               SearchIndexGeneration generation,
+                               InMemoryProductSearchEngine memoryEngine,
+                               StringRedisTemplate redisTemplate,
+                               @Value("${app.search.reindex.lease:10m}") Duration reindexLease) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.visibleWrites = elasticsearchOperations.withRefreshPolicy(RefreshPolicy.WAIT_UNTIL);
+        this.elasticsearchClient = elasticsearchClient;
+        this.generation = generation;
+        this.memoryEngine = memoryEngine;
+        this.redisTemplate = redisTemplate;
+        this.alias = elasticsearchOperations.getIndexCoordinatesFor(ProductDocument.class);
+        this.reindexLease = reindexLease;
+    }
+
+    /**
+     * Al arrancar crea el primer indice versionado y el alias si no existe
+     * ninguno. Un indice "products" concreto de versiones anteriores se deja
+     * en uso: la primera reindexacion lo reemplaza por el alias.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void ensureIndex() {
+        try {
+            if (!elasticsearchOperations.indexOps(alias).exists()) {
+                String index = createVersionedIndex(false);
+                elasticsearchOperations.indexOps(alias).alias(new AliasActions(new AliasAction.Add(
+                    AliasActionParameters.builder().withIndices(index).withAliases(alias.getIndexName()).build())));
+                log.info("Indice de productos creado: {} (alias {})", index, alias.getIndexName());
+            } else {
+                updateMapping();
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo verificar el indice de productos al arrancar: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Agrega al indice en uso los campos nuevos del documento (p. ej. el de
+     * autocompletado) antes de que se indexen con mapeo dinamico. Los cambios
+     * de tipo de un campo existente no se pueden aplicar asi y requieren una
+     * reindexacion.
+     */
+    private void updateMapping() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(alias);
+        try {
+            indexOps.putMapping(indexOps.createMapping(ProductDocument.class));
+        } catch (Exception e) {
+            log.warn("El mapeo del indice {} esta desactualizado, ejecutar una reindexacion: {}",
+                alias.getIndexName(), e.getMessage());
+        }
+    }
+
+    public String getAliasName() {
+        return alias.getIndexName();
+    }
+
+    /**
+     * Indices fisicos a los que apunta hoy el alias (o el indice concreto heredado).
+     */
+    public List<String> currentIndices() {
+        return elasticsearchOperations.indexOps(alias).getInformation(alias).stream()
+            .map(IndexInformation::getName)
+            .toList();
+    }
+
+    /**
+     * Indexa documentos en el indice en memoria y en el alias y, si hay una
+     * reindexacion en curso, tambien en el indice nuevo. El indice en memoria
+     * se actualiza primero para que siga al dia aunque Elasticsearch falle.
+     *
+     * Si Redis no responde se lanza la excepcion para que el llamador reintente:
+     * sin saber si hay una reindexacion, la escritura podria perderse en el
+     * indice nuevo.
+     */
+    public void index(List<ProductDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        memoryEngine.index(documents);
+        try {
+            visibleWrites.save(documents, alias);
+        } finally {
+            generation.bump();
+        }
+        String target = redisTemplate.opsForValue().get(REINDEX_TARGET_KEY);
+        if (target != null) {
+            redisTemplate.opsForSet().add(REINDEX_TOUCHED_KEY,
+                documents.stream().map(ProductDocument::getId).toArray(String[]::new));
+            elasticsearchOperations.save(documents, IndexCoordinates.of(target));
+        }
+    }
+
+    /**
+     * Elimina documentos por ID del indice en memoria, del alias y, si hay una
+     * reindexacion en curso, del indice nuevo. Igual que {@link #index}, falla
+     * si Redis no responde.
+     */
+    public void delete(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        memoryEngine.delete(ids);
+        // delete-by-query no admite wait_for: se refresca al terminar
+        DeleteQuery query = DeleteQuery.builder(NativeQuery.builder().withIds(ids).build()).withRefresh(true).build();
+        try {
+            elasticsearchOperations.delete(query, ProductDocument.class, alias);
+        } finally {
+            generation.bump();
+        }
+        String target = redisTemplate.opsForValue().get(REINDEX_TARGET_KEY);
+        if (target != null) {
+            redisTemplate.opsForSet().add(REINDEX_TOUCHED_KEY, ids.toArray(String[]::new));
+            elasticsearchOperations.delete(query, ProductDocument.class, IndexCoordinates.of(target));
+        }
+    }
+
+    /**
+     * Elimina todos los documentos del indice en memoria y del indice detras del alias.
+     */
+    public void deleteAll() {
+        memoryEngine.clear();
+        try {
+            elasticsearchOperations.delete(DeleteQuery.builder(NativeQuery.builder()
+                .withQuery(Query.of(q -> q.matchAll(m -> m))).build()).withRefresh(true).build(),
+                ProductDocument.class, alias);
+        } finally {
+            generation.bump();
+        }
+    }
+
+    public void refresh() {
+        elasticsearchOperations.indexOps(alias).refresh();
+    }
+
+    // ========================================
+    // Soporte de reindexacion
+    // ========================================
+
+    /**
+     * Crea un indice versionado con el mapping de {@link ProductDocument}.
+     *
+     * @param bulkLoad si es true se crea sin refresco periodico, para cargas masivas
+     */
+    String createVersionedIndex(boolean bulkLoad) {
+        String name = alias.getIndexName() + "-v" + LocalDateTime.now().format(VERSION_FORMAT);
+        IndexOperations template = elasticsearchOperations.indexOps(ProductDocument.class);
+        Settings settings = template.createSettings().flatten();
+        if (bulkLoad) {
+            settings.put("index.refresh_interval", "-1");
+        }
+        Document mapping = template.createMapping();
+        elasticsearchOperations.indexOps(IndexCoordinates.of(name)).create(settings, mapping);
+        return name;
+    }
+
+    /**
+     * Empieza a duplicar en el indice indicado las escrituras incrementales de
+     * todas las instancias, durante app.search.reindex.lease si no se renueva.
+     *
+     * @throws IllegalStateException si otra instancia ya tiene una reindexacion en curso
+     */
+    void beginDualWrite(String index) {
+        Long acquired = redisTemplate.execute(BEGIN_DUAL_WRITE, List.of(REINDEX_TARGET_KEY, REINDEX_TOUCHED_KEY),
+            index, String.valueOf(reindexLease.toMillis()));
+        if (acquired == null || acquired == 0) {
+            throw new IllegalStateException("Ya hay una reindexacion en curso hacia "
+                + redisTemplate.opsForValue().get(REINDEX_TARGET_KEY));
+        }
+    }
+
+    /**
+     * Extiende el lease de la duplicacion hacia el indice indicado.
+     *
+     * @throws IllegalStateException si el lease ya vencio: las otras instancias
+     *                               pudieron dejar de duplicar y el indice no es confiable
+     */
+    void renewDualWrite(String index) {
+        Long renewed = redisTemplate.execute(RENEW_DUAL_WRITE, List.of(REINDEX_TARGET_KEY, REINDEX_TOUCHED_KEY),
+            index, String.valueOf(reindexLease.toMillis()));
+        if (renewed == null || renewed == 0) {
+            throw new IllegalStateException("Vencio el lease de la reindexacion hacia " + index);
+        }
+    }
+
+    /**
+     * Devuelve y saca del registro los IDs escritos de forma incremental desde
+     * el ultimo llamado, por cualquier instancia.
+     */
+    List<Long> drainTouched() {
+        List<Long> ids = new ArrayList<>();
+        List<String> popped;
+        do {
+            popped = redisTemplate.opsForSet().pop(REINDEX_TOUCHED_KEY, DRAIN_BATCH);
+            if (popped != null) {
+                popped.forEach(id -> ids.add(Long.valueOf(id)));
+            }
+        } while (popped != null && popped.size() == DRAIN_BATCH);
+        return ids;
+    }
+
+    /**
+     * Deja de duplicar hacia el indice indicado. No toca una reindexacion de
+     * otra instancia que haya tomado el destino despues.
+     */
+    void endDualWrite(String index) {
+        try {
+            redisTemplate.execute(END_DUAL_WRITE, List.of(REINDEX_TARGET_KEY, REINDEX_TOUCHED_KEY), index);
+        } catch (Exception e) {
+            // El lease vence solo y las instancias dejan de duplicar
+            log.warn("No se pudo liberar la reindexacion hacia {}: {}", index, e.getMessage());
+        }
+    }
+
+    void saveTo(String index, List<ProductDocument> documents) {
+        elasticsearchOperations.save(documents, IndexCoordinates.of(index));
+    }
+
+    void deleteFrom(String index, Collection<String> ids) {
+        elasticsearchOperations.delete(DeleteQuery.builder(NativeQuery.builder().withIds(ids).build()).build(),
+            ProductDocument.class, IndexCoordinates.of(index));
+    }
+
+    /**
+     * Restaura el refresco periodico de un indice cargado en modo masivo y lo refresca.
+     */
+    void finishBulkLoad(String index) throws IOException {
+        elasticsearchClient.indices().putSettings(request -> request
+            .index(index)
+            .settings(settings -> settings.refreshInterval(interval -> interval.time("1s"))));
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index)).refresh();
+    }
+
+    /**
+     * Mueve el alias al indice nuevo en una sola operacion atomica. Si el
+     * nombre del alias todavia es un indice concreto heredado, se elimina en
+     * la misma operacion.
+     *
+     * @return indices que dejaron de estar detras del alias
+     */
+    List<String> swapAlias(String newIndex) {
+        List<String> previous = currentIndices().stream().filter(name -> !name.equals(newIndex)).toList();
+        AliasActions actions = new AliasActions();
+        for (String old : previous) {
+            if (old.equals(alias.getIndexName())) {
+                actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(old).build()));
+            } else {
+                actions.add(new AliasAction.Remove(
+                    AliasActionParameters.builder().withIndices(old).withAliases(alias.getIndexName()).build()));
+            }
+        }
+        actions.add(new AliasAction.Add(
+            AliasActionParameters.builder().withIndices(newIndex).withAliases(alias.getIndexName()).build()));
+        elasticsearchOperations.indexOps(IndexCoordinates.of(newIndex)).alias(actions);
+        generation.bump();
+        return previous.stream().filter(name -> !name.equals(alias.getIndexName())).toList();
+    }
+
+    void deleteIndex(String index) {
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index)).delete();
+    }
+}
@@ -0,0 +1,177 @@
+package com.proyecto.catalog.search;
+
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.repository.ProductRepository;
+import com.proyecto.catalog.service.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sincronizacion incremental de PostgreSQL a Elasticsearch.
+ *
+ * - Los cambios llegan como {@link ProductChangedEvent} despues del commit.
+ * - Se acumulan en un mapa por ID: varios cambios seguidos del mismo producto
+ *   se fusionan en una sola escritura.
+ * - Un worker periodico toma lotes de IDs, lee su estado actual de la base de
+ *   datos y envia un bulk a Elasticsearch (index para los existentes, delete
+ *   para los eliminados). Al leer el estado actual el orden de los eventos no
+ *   importa.
+ * - Si el bulk falla, los IDs vuelven a la cola y se reintenta con backoff
+ *   exponencial.
+ *
+ * La cola vive en memoria: si la instancia se cae con cambios pendientes,
+ * POST /catalog/search/sync los recupera.
+ */
+@Component
+public class ProductIndexSyncWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexSyncWorker.class);
+
+    /** ID de producto -> instante (ms) del primer cambio aun no indexado. */
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    private final ProductRepository productRepository;
+    private final ProductIndexManager indexManager;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxBackoff;
+    private final Counter indexed;
+    private final Counter deleted;
+    private final Counter failures;
+
+    private volatile int consecutiveFailures;
+    private volatile long nextAttemptAt;
+
+    public ProductIndexSyncWorker(ProductRepository productRepository,
+                                  ProductIndexManager indexManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.search.sync.enabled:true}") boolean enabled,
+                                  @Value("${app.search.sync.batch-size:500}") int batchSize,
+                                  @Value("${app.search.sync.max-backoff:30s}") Duration maxBackoff) {
+        this.productRepository = productRepository;
+        this.indexManager = indexManager;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBackoff = maxBackoff;
+
+        this.indexed = Counter.builder("search.sync.documents")
+            .tag("operation", "index")
+            .description("Documentos escritos en Elasticsearch por la sincronizacion incremental")
+            .register(meterRegistry);
+        this.deleted = Counter.builder("search.sync.documents")
+            .tag("operation", "delete")
+            .description("Documentos escritos en Elasticsearch por la sincronizacion incremental")
+            .register(meterRegistry);
+        this.failures = Counter.builder("search.sync.failures")
+            .description("Lotes de sincronizacion que fallaron y se reintentaran")
+            .register(meterRegistry);
+        Gauge.builder("search.sync.pending", pending, Map::size)
+            .description("Productos modificados pendientes de indexar")
+            .register(meterRegistry);
+        Gauge.builder("search.sync.lag", this, worker -> worker.lag().toMillis() / 1000.0)
+            .description("Antiguedad en segundos del cambio pendiente mas viejo (atraso del indice)")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Encola los productos modificados. Fuera de una transaccion se ejecuta de inmediato.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        event.getProductIds().forEach(id -> pending.putIfAbsent(id, now));
+    }
+
+    /**
+     * Envia a Elasticsearch los cambios pendientes, en lotes.
+     */
+    @Scheduled(fixedDelayString = "${app.search.sync.interval:500ms}")
+    public void flush() {
+        if (pending.isEmpty() || System.currentTimeMillis() < nextAttemptAt) {
+            return;
+        }
+        Map<Long, Long> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            try {
+                apply(batch.keySet());
+                consecutiveFailures = 0;
+            } catch (Exception e) {
+                // Vuelven a la cola conservando el instante original (el lag sigue creciendo)
+                batch.forEach(pending::putIfAbsent);
+                failures.increment();
+                consecutiveFailures++;
+                long backoff = Math.min(maxBackoff.toMillis(), 500L << Math.min(consecutiveFailures, 10));
+                nextAttemptAt = System.currentTimeMillis() + backoff;
+                log.warn("Fallo la sincronizacion de {} productos con Elasticsearch, reintento en {} ms: {}",
+                    batch.size(), backoff, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Atraso actual del indice: antiguedad del cambio pendiente mas viejo.
+     */
+    public Duration lag() {
+        long oldest = pending.values().stream().mapToLong(Long::longValue).min().orElse(0L);
+        return oldest == 0L ? Duration.ZERO : Duration.ofMillis(System.currentTimeMillis() - oldest);
+    }
+
+    private Map<Long, Long> takeBatch() {
+        Map<Long, Long> batch = new HashMap<>();
+        Iterator<Long> it = pending.keySet().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            Long id = it.next();
+            // Un cambio que llegue despues de sacarlo vuelve a encolarse y se procesa en la siguiente ronda
+            Long since = pending.remove(id);
+            if (since != null) {
+                batch.put(id, since);
+            }
+        }
+        return batch;
+    }
+
+    private void apply(Set<Long> ids) {
+        Map<Long, Product> current = productRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductDocument> documents = current.values().stream()
+            .map(ProductDocument::fromProduct)
+            .toList();
+        if (!documents.isEmpty()) {
+            indexManager.index(documents);
+            indexed.increment(documents.size());
+        }
+
+        List<String> removed = new ArrayList<>();
+        ids.stream().filter(id -> !current.containsKey(id)).forEach(id -> removed.add(String.valueOf(id)));
+        if (!removed.isEmpty()) {
+            indexManager.delete(removed);
+            deleted.increment(removed.size());
+        }
+        log.debug("Sincronizados {} productos con Elasticsearch ({} eliminados)", ids.size(), removed.size());
+    }
+}
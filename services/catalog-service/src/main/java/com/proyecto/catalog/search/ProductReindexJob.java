@@ -0,0 +1,304 @@
+package com.proyecto.catalog.search;
+
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ReindexStatus;
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.repository.ProductRepository;
+import com.proyecto.catalog.service.CatalogService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reindexacion completa de productos sin cortar la busqueda.
+ *
+ * 1. Crea un indice versionado nuevo, sin refresco periodico durante la carga.
+ * 2. Lee los productos de PostgreSQL en lotes keyset (memoria constante) y
+ *    envia cada lote como un bulk a un pool acotado de workers. Si la cola del
+ *    pool se llena, el hilo lector indexa el lote el mismo (CallerRunsPolicy),
+ *    lo que frena la lectura: esa es la contrapresion.
+ * 3. Vuelve a copiar los productos modificados durante la carga (las escrituras
+ *    incrementales de todas las instancias se duplican en el indice nuevo
+ *    mientras tanto, ver {@link ProductIndexManager}).
+ * 4. Restaura el refresco y mueve el alias "products" en una sola operacion.
+ *
+ * Si algo falla, el indice nuevo se elimina y el alias queda como estaba.
+ * Solo puede correr una reindexacion a la vez en todo el servicio: otra
+ * instancia que intente empezar termina en FAILED sin tocar el alias.
+ */
+@Component
+public class ProductReindexJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReindexJob.class);
+
+    private static final int CATCH_UP_ROUNDS = 3;
+
+    private final CatalogService catalogService;
+    private final ProductRepository productRepository;
+    private final ProductIndexManager indexManager;
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-reindex");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int chunkSize;
+    private final int workers;
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final boolean deletePreviousIndex;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final Counter documents;
+    private final Timer duration;
+
+    private volatile ReindexStatus status = new ReindexStatus();
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+
+    public ProductReindexJob(CatalogService catalogService,
+                             ProductRepository productRepository,
+                             ProductIndexManager indexManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.search.reindex.chunk-size:1000}") int chunkSize,
+                             @Value("${app.search.reindex.workers:4}") int workers,
+                             @Value("${app.search.reindex.queue-capacity:8}") int queueCapacity,
+                             @Value("${app.search.reindex.max-retries:3}") int maxRetries,
+                             @Value("${app.search.reindex.delete-previous-index:true}") boolean deletePreviousIndex) {
+        this.catalogService = catalogService;
+        this.productRepository = productRepository;
+        this.indexManager = indexManager;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+        this.deletePreviousIndex = deletePreviousIndex;
+
+        this.documents = Counter.builder("search.reindex.documents")
+            .description("Documentos escritos por la reindexacion completa")
+            .register(meterRegistry);
+        this.duration = Timer.builder("search.reindex.duration")
+            .description("Duracion de las reindexaciones completas")
+            .register(meterRegistry);
+        Gauge.builder("search.reindex.progress", this, job -> job.total.get() == 0 ? 0.0
+                : (double) job.processed.get() / job.total.get())
+            .description("Fraccion completada de la reindexacion en curso (0 a 1)")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Inicia una reindexacion en segundo plano.
+     *
+     * @throws IllegalStateException si ya hay una en curso
+     */
+    public ReindexStatus start() {
+        begin();
+        launcher.execute(this::run);
+        return status();
+    }
+
+    /**
+     * Ejecuta una reindexacion y espera a que termine.
+     *
+     * @throws IllegalStateException si ya hay una en curso
+     */
+    public ReindexStatus runNow() {
+        begin();
+        run();
+        return status();
+    }
+
+    /**
+     * Estado de la ejecucion en curso o de la ultima.
+     */
+    public ReindexStatus status() {
+        ReindexStatus current = status;
+        current.setProcessed(processed.get());
+        if (startedNanos > 0) {
+            long end = finishedNanos > 0 ? finishedNanos : System.nanoTime();
+            double seconds = Math.max(0.001, (end - startedNanos) / 1e9);
+            current.setDocsPerSecond(Math.round(processed.get() / seconds * 10) / 10.0);
+        }
+        return current;
+    }
+
+    private void begin() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una reindexacion en curso");
+        }
+        ReindexStatus next = new ReindexStatus();
+        next.setState("RUNNING");
+        next.setStartedAt(LocalDateTime.now());
+        processed.set(0);
+        total.set(0);
+        startedNanos = System.nanoTime();
+        finishedNanos = 0;
+        status = next;
+    }
+
+    private void run() {
+        ReindexStatus current = status;
+        String index = null;
+        Timer.Sample sample = Timer.start();
+        try {
+            total.set(productRepository.count());
+            current.setTotal(total.get());
+            index = indexManager.createVersionedIndex(true);
+            current.setTargetIndex(index);
+            indexManager.beginDualWrite(index);
+            log.info("Reindexacion iniciada: {} productos hacia {}", total.get(), index);
+
+            copyAll(index);
+            current.setCaughtUp(catchUp(index));
+            indexManager.finishBulkLoad(index);
+            indexManager.renewDualWrite(index);
+            List<String> previous = indexManager.swapAlias(index);
+            indexManager.endDualWrite(index);
+            log.info("Alias {} movido a {}", indexManager.getAliasName(), index);
+
+            if (deletePreviousIndex) {
+                previous.forEach(this::deleteQuietly);
+            }
+            current.setState("COMPLETED");
+        } catch (Exception e) {
+            if (index != null) {
+                indexManager.endDualWrite(index);
+                deleteQuietly(index);
+            }
+            current.setState("FAILED");
+            current.setError(e.getMessage());
+            log.error("Reindexacion fallida, el alias no se modifico: {}", e.getMessage());
+        } finally {
+            finishedNanos = System.nanoTime();
+            current.setFinishedAt(LocalDateTime.now());
+            status();
+            long nanos = sample.stop(duration);
+            log.info("Reindexacion finalizada: estado={}, productos={}, duracion={} ms, {} docs/s",
+                current.getState(), processed.get(), nanos / 1_000_000, current.getDocsPerSecond());
+            running.set(false);
+        }
+    }
+
+    /**
+     * Lee todos los productos en lotes keyset y los indexa con el pool acotado.
+     */
+    private void copyAll(String index) throws InterruptedException {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            List<ProductDocument> chunk = new ArrayList<>(chunkSize);
+            catalogService.streamProducts("id", "asc", chunkSize, product -> {
+                chunk.add(ProductDocument.fromProduct(product));
+                if (chunk.size() == chunkSize) {
+                    if (failure.get() != null) {
+                        throw new IllegalStateException("Se cancela la lectura por un lote fallido");
+                    }
+                    indexManager.renewDualWrite(index);
+                    List<ProductDocument> batch = List.copyOf(chunk);
+                    chunk.clear();
+                    pool.execute(() -> writeChunk(index, batch, failure));
+                }
+            });
+            if (!chunk.isEmpty()) {
+                writeChunk(index, List.copyOf(chunk), failure);
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Lote de reindexacion fallido: " + failure.get().getMessage(), failure.get());
+        }
+    }
+
+    private void writeChunk(String index, List<ProductDocument> batch, AtomicReference<Exception> failure) {
+        for (int attempt = 1; failure.get() == null; attempt++) {
+            try {
+                indexManager.saveTo(index, batch);
+                processed.addAndGet(batch.size());
+                documents.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    failure.compareAndSet(null, e);
+                    return;
+                }
+                log.warn("Reintentando lote de {} documentos (intento {}): {}", batch.size(), attempt, e.getMessage());
+                sleep(Duration.ofMillis(200L << attempt));
+            }
+        }
+    }
+
+    /**
+     * Vuelve a copiar desde la base de datos los productos escritos de forma
+     * incremental durante la carga: el lote leido antes del cambio podria
+     * haberse escrito despues y pisar la version nueva.
+     */
+    private long catchUp(String index) {
+        long copied = 0;
+        for (int round = 0; round < CATCH_UP_ROUNDS; round++) {
+            indexManager.renewDualWrite(index);
+            List<Long> ids = indexManager.drainTouched();
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> slice = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+                Map<Long, Product> current = productRepository.findAllById(slice).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+                if (!current.isEmpty()) {
+                    indexManager.saveTo(index, current.values().stream().map(ProductDocument::fromProduct).toList());
+                }
+                List<String> removed = slice.stream()
+                    .filter(id -> !current.containsKey(id))
+                    .map(String::valueOf)
+                    .toList();
+                if (!removed.isEmpty()) {
+                    indexManager.deleteFrom(index, removed);
+                }
+                copied += slice.size();
+            }
+        }
+        return copied;
+    }
+
+    private void deleteQuietly(String index) {
+        try {
+            indexManager.deleteIndex(index);
+        } catch (Exception e) {
+            log.warn("No se pudo eliminar el indice {}: {}", index, e.getMessage());
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
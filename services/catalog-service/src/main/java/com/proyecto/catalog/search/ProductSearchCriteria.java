@@ -0,0 +1,39 @@
+package com.proyecto.catalog.search;
+
+import lombok.Data;
+
+/**
+ * Filtros, orden y paginacion de una busqueda de productos.
+ * Todos los filtros son opcionales y se combinan (AND).
+ */
+@Data
+public class ProductSearchCriteria {
+
+    /** Texto a buscar en el nombre. Es el unico criterio que afecta la relevancia. */
+    private String q;
+
+    /** Estado de stock: OK, LOW, OUT_OF_STOCK. */
+    private String status;
+
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minStock;
+    private Integer maxStock;
+
+    /** relevance, price, name o stock. */
+    private String sort = "relevance";
+
+    /** asc o desc; con relevance se ignora (siempre desc). */
+    private String direction = "asc";
+
+    /** Pagina (desde 0) para paginacion from/size. Se ignora si hay cursor. */
+    private int page;
+
+    private Integer size;
+
+    /** Cursor search_after devuelto por la pagina anterior. */
+    private String cursor;
+
+    /** Si es true la respuesta incluye conteos por estado de stock y rango de precio. */
+    private boolean facets;
+}
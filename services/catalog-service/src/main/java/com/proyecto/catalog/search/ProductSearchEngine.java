@@ -0,0 +1,43 @@
+package com.proyecto.catalog.search;
+
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ProductSearchPage;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Motor que resuelve las busquedas de productos.
+ *
+ * {@link ProductSearchService} valida y normaliza los criterios, cachea los
+ * resultados y elige el motor: Elasticsearch o el indice en memoria, que
+ * tambien se usa como respaldo cuando Elasticsearch falla.
+ */
+public interface ProductSearchEngine {
+
+    Set<String> STOCK_STATUSES = Set.of("OK", "LOW", "OUT_OF_STOCK");
+
+    /** Ordenamientos soportados; relevance siempre es descendente. */
+    Set<String> SORTS = Set.of("relevance", "price", "stock", "name");
+
+    /**
+     * Nombre del motor, usado en la configuracion (app.search.engine) y en las metricas.
+     */
+    String name();
+
+    /**
+     * Si el motor puede responder (p. ej. el indice en memoria termino de cargarse).
+     */
+    boolean isReady();
+
+    /**
+     * Pagina de resultados. El orden, la direccion, la pagina y el tamano ya
+     * vienen validados; el cursor de los criterios lo decodifica el motor.
+     */
+    ProductSearchPage search(ProductSearchCriteria criteria, String sort, String direction, int page, int size);
+
+    /**
+     * Primeros resultados por relevancia, sin paginar.
+     */
+    List<ProductDocument> searchList(ProductSearchCriteria criteria, int maxResults);
+}
@@ -1,78 +1,419 @@
 package com.proyecto.catalog.search;
 
 import com.proyecto.catalog.document.ProductDocument;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.ArrayPercentilesItem;
+import co.elastic.clients.elasticsearch._types.aggregations.HistogramBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.proyecto.catalog.dto.ProductSearchPage;
+import com.proyecto.catalog.dto.ReindexStatus;
+import com.proyecto.catalog.dto.SearchStats;
 import com.proyecto.catalog.model.Product;
-import com.proyecto.catalog.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
- * Servicio de busqueda con Elasticsearch.
+ * Servicio de busqueda de productos.
  * Proporciona busqueda full-text y sincronizacion de datos.
+ *
+ * Valida los criterios y delega en un {@link ProductSearchEngine}: Elasticsearch
+ * o el indice en memoria, segun app.search.engine. Con Elasticsearch como motor
+ * principal, si una consulta falla o tarda mas de app.search.fallback.timeout
+ * se responde con el indice en memoria y Elasticsearch no se vuelve a
+ * consultar hasta pasado app.search.fallback.retry-after.
+ *
+ * Los resultados se cachean en memoria con la generacion del indice en la
+ * key ({@link SearchIndexGeneration}): cada escritura la incrementa cuando ya
+ * es visible, y las entradas anteriores dejan de usarse sin tener que borrarlas.
  */
 @Service
 public class ProductSearchService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
 
-    private final ProductSearchRepository searchRepository;
-    private final ProductRepository productRepository;
+    private static final String STATS_KEY = "stats";
 
-    public ProductSearchService(ProductSearchRepository searchRepository,
-                                 ProductRepository productRepository) {
-        this.searchRepository = searchRepository;
-        this.productRepository = productRepository;
+    private final ProductReindexJob reindexJob;
+    private final ProductIndexManager indexManager;
+    private final SearchIndexGeneration indexGeneration;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchProductSearchEngine elasticsearchEngine;
+    private final InMemoryProductSearchEngine memoryEngine;
+    private final boolean memoryPrimary;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxResultWindow;
+    private final int legacyMaxResults;
+    private final double statsPriceInterval;
+    private final long fallbackTimeoutMillis;
+    private final long retryAfterNanos;
+    private final ThreadPoolExecutor elasticsearchExecutor;
+    private final Cache<String, SearchStats> statsCache;
+    private final Cache<String, CachedResult> resultCache;
+    private final Counter cacheBypass;
+    private final Timer savedLatency;
+    private final Counter fallbacks;
+    private final Counter saturated;
+    private final Map<String, Timer> engineLatency;
+
+    /** Momento (System.nanoTime) hasta el que no se consulta Elasticsearch tras una falla. */
+    private volatile long elasticsearchRetryAt;
+
+    public ProductSearchService(ProductReindexJob reindexJob,
+                                 ProductIndexManager indexManager,
+                                 SearchIndexGeneration indexGeneration,
+                                 ElasticsearchOperations elasticsearchOperations,
+                                 ElasticsearchProductSearchEngine elasticsearchEngine,
+                                 InMemoryProductSearchEngine memoryEngine,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.search.engine:elasticsearch}") String engine,
+                                 @Value("${app.search.page.default-size:20}") int defaultPageSize,
+                                 @Value("${app.search.page.max-size:100}") int maxPageSize,
+                                 @Value("${app.search.max-result-window:10000}") int maxResultWindow,
+                                 @Value("${app.search.legacy-max-results:1000}") int legacyMaxResults,
+                                 @Value("${app.search.stats.price-interval:100}") double statsPriceInterval,
+                                 @Value("${app.search.stats.cache-ttl:30s}") Duration statsCacheTtl,
+                                 @Value("${app.search.cache.max-entries:5000}") long cacheMaxEntries,
+                                 @Value("${app.search.cache.ttl:10m}") Duration cacheTtl,
+                                 @Value("${app.search.fallback.timeout:2s}") Duration fallbackTimeout,
+                                 @Value("${app.search.fallback.retry-after:30s}") Duration retryAfter,
+                                 @Value("${app.search.fallback.max-concurrency:64}") int maxConcurrency) {
+        if (!"elasticsearch".equalsIgnoreCase(engine) && !"memory".equalsIgnoreCase(engine)) {
+            throw new IllegalArgumentException("Motor de busqueda no soportado en app.search.engine: " + engine);
+        }
+        this.reindexJob = reindexJob;
+        this.indexManager = indexManager;
+        this.indexGeneration = indexGeneration;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchEngine = elasticsearchEngine;
+        this.memoryEngine = memoryEngine;
+        this.memoryPrimary = "memory".equalsIgnoreCase(engine);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxResultWindow = maxResultWindow;
+        this.legacyMaxResults = legacyMaxResults;
+        this.statsPriceInterval = statsPriceInterval;
+        this.fallbackTimeoutMillis = fallbackTimeout.toMillis();
+        this.retryAfterNanos = retryAfter.toNanos();
+
+        // Pool acotado y sin cola: si Elasticsearch esta colgado no se acumulan hilos esperando
+        AtomicInteger threads = new AtomicInteger();
+        this.elasticsearchExecutor = new ThreadPoolExecutor(0, maxConcurrency, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "search-es-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        this.statsCache = Caffeine.newBuilder()
+            .maximumSize(1)
+            .expireAfterWrite(statsCacheTtl)
+            .build();
+
+        // El TTL solo acota el dano si Redis no registro alguna escritura
+        this.resultCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxEntries)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resultCache, "search.results");
+        Gauge.builder("search.results.hit.ratio", resultCache, cache -> cache.stats().hitRate())
+            .description("Fraccion de busquedas respondidas desde la cache de resultados")
+            .register(meterRegistry);
+        this.cacheBypass = Counter.builder("search.results.bypass")
+            .description("Busquedas que no usaron la cache porque no se pudo leer la generacion del indice en Redis")
+            .register(meterRegistry);
+        this.savedLatency = Timer.builder("search.results.saved.latency")
+            .description("Tiempo de consulta al motor de busqueda ahorrado por cada acierto de cache")
+            .register(meterRegistry);
+        this.fallbacks = Counter.builder("search.engine.fallback")
+            .description("Busquedas respondidas con el indice en memoria porque Elasticsearch fallo o no respondio")
+            .register(meterRegistry);
+        this.saturated = Counter.builder("search.engine.saturated")
+            .description("Busquedas respondidas con el indice en memoria porque el pool de Elasticsearch estaba lleno")
+            .register(meterRegistry);
+        // Percentiles por motor para vigilar el p99 de las busquedas que no salen de la cache
+        this.engineLatency = Map.of(
+            elasticsearchEngine.name(), engineTimer(meterRegistry, elasticsearchEngine),
+            memoryEngine.name(), engineTimer(meterRegistry, memoryEngine));
+    }
+
+    private static Timer engineTimer(MeterRegistry meterRegistry, ProductSearchEngine engine) {
+        return Timer.builder("search.engine.latency")
+            .description("Latencia de las busquedas resueltas por el motor, sin aciertos de cache")
+            .tag("engine", engine.name())
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        elasticsearchExecutor.shutdownNow();
     }
 
     /**
-     * Busca productos por texto en el nombre.
+     * Busca productos combinando todos los criterios en una sola consulta paginada.
+     *
+     * @throws IllegalArgumentException si el orden, el estado, el cursor o la paginacion son invalidos
      */
-    public List<ProductDocument> searchByName(String query) {
-        log.info("Buscando productos con query: {}", query);
-        return searchRepository.findByNameContainingIgnoreCase(query);
+    public ProductSearchPage search(ProductSearchCriteria criteria) {
+        String sort = criteria.getSort() != null ? criteria.getSort().toLowerCase() : "relevance";
+        if (!ProductSearchEngine.SORTS.contains(sort)) {
+            throw new IllegalArgumentException("Campo de ordenamiento no soportado: " + criteria.getSort());
+        }
+        String direction = "relevance".equals(sort) ? "desc"
+            : criteria.getDirection() != null ? criteria.getDirection().toLowerCase() : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Direccion no soportada: " + criteria.getDirection());
+        }
+        int size = Math.min(criteria.getSize() != null && criteria.getSize() > 0 ? criteria.getSize() : defaultPageSize, maxPageSize);
+        int page = criteria.getCursor() != null ? 0 : Math.max(criteria.getPage(), 0);
+        if ((long) (page + 1) * size > maxResultWindow) {
+            throw new IllegalArgumentException("Pagina fuera de la ventana de " + maxResultWindow
+                + " resultados; usar el cursor para avanzar");
+        }
+        validateStatus(criteria);
+
+        String key = String.join("|", "page", filterKey(criteria), sort, direction,
+            String.valueOf(page), String.valueOf(size), String.valueOf(criteria.getCursor()),
+            String.valueOf(criteria.isFacets()));
+        return cached(key, engine -> engine.search(criteria, sort, direction, page, size));
     }
 
     /**
-     * Busca productos por estado de stock.
+     * Busqueda sin paginar para el endpoint historico, que devuelve una lista.
+     * Combina todos los criterios y se limita a los primeros resultados.
      */
-    public List<ProductDocument> searchByStockStatus(String status) {
-        log.info("Buscando productos con stockStatus: {}", status);
-        return searchRepository.findByStockStatus(status.toUpperCase());
+    public List<ProductDocument> searchList(ProductSearchCriteria criteria) {
+        validateStatus(criteria);
+        return cached("list|" + filterKey(criteria), engine -> engine.searchList(criteria, legacyMaxResults));
+    }
+
+    private static void validateStatus(ProductSearchCriteria criteria) {
+        if (criteria.getStatus() != null && !criteria.getStatus().isBlank()
+            && !ProductSearchEngine.STOCK_STATUSES.contains(criteria.getStatus().trim().toUpperCase())) {
+            throw new IllegalArgumentException("Estado de stock no soportado: " + criteria.getStatus());
+        }
+    }
+
+    /**
+     * Devuelve el resultado cacheado para la generacion vigente del indice o lo
+     * calcula y lo guarda. La generacion se lee antes de buscar: si una
+     * escritura la incrementa mientras tanto, el resultado queda guardado con
+     * la anterior y no se vuelve a usar. Sin Redis se consulta el motor
+     * directamente. Las respuestas del motor de respaldo no se cachean, para
+     * volver al principal apenas se recupere.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Function<ProductSearchEngine, T> search) {
+        Long generation = indexGeneration.current();
+        if (generation == null) {
+            cacheBypass.increment();
+            return execute(search).value();
+        }
+        String cacheKey = generation + "|" + key;
+        CachedResult hit = resultCache.getIfPresent(cacheKey);
+        if (hit != null) {
+            savedLatency.record(hit.nanos(), TimeUnit.NANOSECONDS);
+            return (T) hit.value();
+        }
+        long start = System.nanoTime();
+        EngineResult<T> result = execute(search);
+        if (!result.fallback()) {
+            resultCache.put(cacheKey, new CachedResult(result.value(), System.nanoTime() - start));
+        }
+        return result.value();
+    }
+
+    /**
+     * Ejecuta la busqueda en el motor configurado. Si es Elasticsearch y falla
+     * o no responde a tiempo, repite la busqueda en el indice en memoria (si
+     * termino de cargarse). Los errores de validacion no activan el respaldo.
+     * Solo los timeouts y errores de Elasticsearch abren el circuito; si el pool
+     * esta lleno, esa busqueda sola se responde en memoria.
+     */
+    private <T> EngineResult<T> execute(Function<ProductSearchEngine, T> search) {
+        if (memoryPrimary && memoryEngine.isReady()) {
+            return new EngineResult<>(run(memoryEngine, search), false);
+        }
+        if (!memoryEngine.isReady()) {
+            return new EngineResult<>(run(elasticsearchEngine, search), false);
+        }
+        if (System.nanoTime() - elasticsearchRetryAt < 0) {
+            fallbacks.increment();
+            return new EngineResult<>(run(memoryEngine, search), true);
+        }
+        Future<T> future;
+        try {
+            future = elasticsearchExecutor.submit(() -> run(elasticsearchEngine, search));
+        } catch (RejectedExecutionException e) {
+            // Pool lleno por una rafaga de busquedas: Elasticsearch puede estar sano, asi
+            // que esta busqueda sale del indice en memoria sin abrir el circuito
+            saturated.increment();
+            return new EngineResult<>(run(memoryEngine, search), true);
+        }
+        try {
+            try {
+                return new EngineResult<>(future.get(fallbackTimeoutMillis, TimeUnit.MILLISECONDS), false);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw new IllegalStateException("sin respuesta en " + fallbackTimeoutMillis + " ms");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IllegalArgumentException invalid) {
+                    throw invalid;
+                }
+                throw new IllegalStateException(String.valueOf(e.getCause().getMessage()), e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Busqueda interrumpida", e);
+        } catch (IllegalStateException e) {
+            elasticsearchRetryAt = System.nanoTime() + retryAfterNanos;
+            log.warn("Elasticsearch no respondio la busqueda ({}); se usa el indice en memoria durante {} ms",
+                e.getMessage(), TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+            fallbacks.increment();
+            return new EngineResult<>(run(memoryEngine, search), true);
+        }
+    }
+
+    private <T> T run(ProductSearchEngine engine, Function<ProductSearchEngine, T> search) {
+        return engineLatency.get(engine.name()).record(() -> search.apply(engine));
     }
 
     /**
-     * Busca productos con precio menor o igual a un valor.
+     * Filtros normalizados para la key de cache: variantes equivalentes de la
+     * misma busqueda (mayusculas, espacios) comparten entrada.
      */
-    public List<ProductDocument> searchByMaxPrice(Double maxPrice) {
-        log.info("Buscando productos con precio <= {}", maxPrice);
-        return searchRepository.findByPriceLessThanEqual(maxPrice);
+    private static String filterKey(ProductSearchCriteria criteria) {
+        String q = criteria.getQ() == null ? "" : criteria.getQ().trim().replaceAll("\\s+", " ").toLowerCase();
+        String status = criteria.getStatus() == null ? "" : criteria.getStatus().trim().toUpperCase();
+        return String.join("|", q, status,
+            String.valueOf(criteria.getMinPrice()), String.valueOf(criteria.getMaxPrice()),
+            String.valueOf(criteria.getMinStock()), String.valueOf(criteria.getMaxStock()));
     }
 
     /**
-     * Obtiene todos los productos indexados.
+     * Estadisticas del indice. Se calculan con agregaciones en una sola consulta
+     * que no trae documentos, asi que el costo en memoria no depende del tamano
+     * del indice. El resultado se reutiliza durante app.search.stats.cache-ttl;
+     * las peticiones concurrentes con la cache vencida esperan un solo calculo.
      */
-    public List<ProductDocument> getAllIndexed() {
-        return StreamSupport.stream(searchRepository.findAll().spliterator(), false)
-            .collect(Collectors.toList());
+    public SearchStats getStats() {
+        return statsCache.get(STATS_KEY, key -> computeStats());
     }
 
+    private SearchStats computeStats() {
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(ElasticsearchProductSearchEngine.MATCH_ALL)
+            .withMaxResults(0)
+            .withTrackTotalHits(true)
+            .withAggregation("by_status", Aggregation.of(a -> a.terms(t -> t.field("stockStatus").size(10))))
+            .withAggregation("price_stats", Aggregation.of(a -> a.stats(s -> s.field("price"))))
+            .withAggregation("price_percentiles", Aggregation.of(a -> a.percentiles(p -> p
+                .field("price").percents(50.0, 90.0, 99.0).keyed(false))))
+            .withAggregation("price_histogram", Aggregation.of(a -> a.histogram(h -> h
+                .field("price").interval(statsPriceInterval).minDocCount(1))))
+            .withAggregation("stock_stats", Aggregation.of(a -> a.stats(s -> s.field("stock"))))
+            .build();
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(query, ProductDocument.class);
+        Map<String, ElasticsearchAggregation> aggregations = hits.hasAggregations()
+            ? ((ElasticsearchAggregations) hits.getAggregations()).aggregationsAsMap()
+            : Map.of();
+
+        SearchStats stats = new SearchStats();
+        stats.setTotalIndexed(hits.getTotalHits());
+        stats.setGeneratedAt(LocalDateTime.now());
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        ProductSearchEngine.STOCK_STATUSES.stream().sorted().forEach(status -> byStatus.put(status, 0L));
+        Aggregate status = ElasticsearchProductSearchEngine.aggregate(aggregations, "by_status");
+        if (status != null && status.isSterms()) {
+            status.sterms().buckets().array().forEach(b -> byStatus.put(b.key().stringValue(), b.docCount()));
+        }
+        stats.setByStockStatus(byStatus);
+        stats.setInStock(byStatus.getOrDefault("OK", 0L));
+        stats.setLowStock(byStatus.getOrDefault("LOW", 0L));
+        stats.setOutOfStock(byStatus.getOrDefault("OUT_OF_STOCK", 0L));
+
+        Aggregate price = ElasticsearchProductSearchEngine.aggregate(aggregations, "price_stats");
+        if (price != null && price.stats().count() > 0) {
+            stats.setMinPrice(price.stats().min());
+            stats.setMaxPrice(price.stats().max());
+            stats.setAvgPrice(price.stats().avg());
+        }
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        Aggregate pricePercentiles = ElasticsearchProductSearchEngine.aggregate(aggregations, "price_percentiles");
+        if (pricePercentiles != null && pricePercentiles.tdigestPercentiles().values().isArray()) {
+            for (ArrayPercentilesItem item : pricePercentiles.tdigestPercentiles().values().array()) {
+                if (!Double.isNaN(item.value())) {
+                    percentiles.put("p" + (int) Double.parseDouble(item.key()), item.value());
+                }
+            }
+        }
+        stats.setPricePercentiles(percentiles);
+
+        List<SearchStats.PriceBucket> histogram = new ArrayList<>();
+        Aggregate priceHistogram = ElasticsearchProductSearchEngine.aggregate(aggregations, "price_histogram");
+        if (priceHistogram != null) {
+            for (HistogramBucket bucket : priceHistogram.histogram().buckets().array()) {
+                histogram.add(new SearchStats.PriceBucket(bucket.key(), bucket.key() + statsPriceInterval, bucket.docCount()));
+            }
+        }
+        stats.setPriceHistogram(histogram);
+
+        Aggregate stock = ElasticsearchProductSearchEngine.aggregate(aggregations, "stock_stats");
+        if (stock != null && stock.stats().count() > 0) {
+            stats.setTotalStock((long) stock.stats().sum());
+            stats.setAvgStock(stock.stats().avg());
+        }
+        return stats;
+    }
+
+    private record CachedResult(Object value, long nanos) {}
+
+    /**
+     * Resultado de un motor; fallback indica que respondio el indice en memoria en lugar de Elasticsearch.
+     */
+    private record EngineResult<T>(T value, boolean fallback) {}
+
     /**
      * Indexa un producto individual en Elasticsearch.
      */
     public void indexProduct(Product product) {
         log.info("Indexando producto: {}", product.getId());
-        ProductDocument doc = ProductDocument.fromProduct(
-            product.getId(),
-            product.getName(),
-            product.getPrice(),
-            product.getStock()
-        );
-        searchRepository.save(doc);
+        indexManager.index(List.of(ProductDocument.fromProduct(product)));
     }
 
     /**
@@ -80,31 +421,37 @@ public class ProductSearchService {
      */
     public void removeFromIndex(Long productId) {
         log.info("Eliminando producto del indice: {}", productId);
-        searchRepository.deleteById(String.valueOf(productId));
+        indexManager.delete(List.of(String.valueOf(productId)));
     }
 
     /**
-     * Sincroniza todos los productos de PostgreSQL a Elasticsearch.
-     * Util para inicializacion o reindexacion.
+     * Sincroniza todos los productos de PostgreSQL a Elasticsearch y espera a que termine.
+     * Usa la reindexacion en streaming hacia un indice nuevo con cambio de alias.
+     *
+     * @throws IllegalStateException si ya hay una reindexacion en curso o si falla
      */
     public int syncAllProducts() {
         log.info("Iniciando sincronizacion completa de productos a Elasticsearch");
-        
-        List<Product> products = productRepository.findAll();
-        
-        List<ProductDocument> documents = products.stream()
-            .map(p -> ProductDocument.fromProduct(
-                p.getId(),
-                p.getName(),
-                p.getPrice(),
-                p.getStock()
-            ))
-            .collect(Collectors.toList());
-
-        searchRepository.saveAll(documents);
-        
-        log.info("Sincronizados {} productos a Elasticsearch", documents.size());
-        return documents.size();
+        ReindexStatus result = reindexJob.runNow();
+        if (!"COMPLETED".equals(result.getState())) {
+            throw new IllegalStateException("La sincronizacion fallo: " + result.getError());
+        }
+        log.info("Sincronizados {} productos a Elasticsearch", result.getProcessed());
+        return (int) result.getProcessed();
+    }
+
+    /**
+     * Inicia una reindexacion completa en segundo plano.
+     */
+    public ReindexStatus startReindex() {
+        return reindexJob.start();
+    }
+
+    /**
+     * Estado de la reindexacion en curso o de la ultima.
+     */
+    public ReindexStatus getReindexStatus() {
+        return reindexJob.status();
     }
 
     /**
@@ -112,6 +459,6 @@ public class ProductSearchService {
      */
     public void clearIndex() {
         log.info("Limpiando indice de productos");
-        searchRepository.deleteAll();
+        indexManager.deleteAll();
     }
 }
@@ -0,0 +1,118 @@
+package com.proyecto.catalog.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Suggestion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Sugerencias de nombres para el autocompletado del buscador.
+ *
+ * Usa el completion suggester sobre el campo "suggest" de
+ * {@link com.proyecto.catalog.document.ProductDocument}: Elasticsearch
+ * resuelve el prefijo en una estructura en memoria, sin recorrer el indice
+ * invertido. Las respuestas se guardan en una
+ * cache local acotada; su politica de admision (W-TinyLFU) conserva los
+ * prefijos mas pedidos y descarta los que aparecen una sola vez.
+ */
+@Service
+public class ProductSuggestService {
+
+    private static final String SUGGESTER = "names";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductIndexManager indexManager;
+    private final Cache<String, List<String>> cache;
+    private final Timer latency;
+    private final Timer backendLatency;
+    private final int defaultSize;
+    private final int maxSize;
+    private final int maxPrefixLength;
+
+    public ProductSuggestService(ElasticsearchClient elasticsearchClient,
+                                 ProductIndexManager indexManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.search.suggest.default-size:8}") int defaultSize,
+                                 @Value("${app.search.suggest.max-size:20}") int maxSize,
+                                 @Value("${app.search.suggest.max-prefix-length:50}") int maxPrefixLength,
+                                 @Value("${app.search.suggest.cache-size:10000}") long cacheSize,
+                                 @Value("${app.search.suggest.cache-ttl:60s}") Duration cacheTtl) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.indexManager = indexManager;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+        this.maxPrefixLength = maxPrefixLength;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search.suggest");
+        this.latency = Timer.builder("search.suggest.latency")
+            .description("Latencia de las sugerencias, incluyendo aciertos de cache")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.backendLatency = Timer.builder("search.suggest.backend.latency")
+            .description("Latencia de las consultas de sugerencias a Elasticsearch")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Nombres de productos que empiezan por el prefijo, o que tienen una
+     * palabra que empieza por el (p. ej. "pav" sugiere "Laptop HP Pavilion").
+     *
+     * @throws IllegalArgumentException si el prefijo esta vacio o es demasiado largo
+     */
+    public List<String> suggest(String prefix, Integer size) {
+        String normalized = prefix == null ? "" : prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > maxPrefixLength) {
+            throw new IllegalArgumentException("El prefijo debe tener entre 1 y " + maxPrefixLength + " caracteres");
+        }
+        int limit = Math.min(size != null && size > 0 ? size : defaultSize, maxSize);
+        return latency.record(() -> cache.get(limit + ":" + normalized, key -> query(normalized, limit)));
+    }
+
+    private List<String> query(String prefix, int limit) {
+        return backendLatency.record(() -> {
+            try {
+                // Se piden mas opciones que las necesarias: varias pueden ser el mismo nombre
+                SearchResponse<NameSource> response = elasticsearchClient.search(s -> s
+                        .index(indexManager.getAliasName())
+                        .source(src -> src.filter(f -> f.includes("name")))
+                        .suggest(sg -> sg.suggesters(SUGGESTER, fs -> fs
+                            .prefix(prefix)
+                            .completion(c -> c.field("suggest").size(limit * 2).skipDuplicates(true)))),
+                    NameSource.class);
+                return response.suggest().getOrDefault(SUGGESTER, List.of()).stream()
+                    .filter(Suggestion::isCompletion)
+                    .flatMap(suggestion -> suggestion.completion().options().stream())
+                    .map(option -> option.source() != null ? option.source().name() : option.text())
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .limit(limit)
+                    .toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error consultando sugerencias", e);
+            }
+        });
+    }
+
+    /**
+     * Fuente reducida de las opciones: solo se trae el nombre.
+     */
+    record NameSource(String name) {}
+}
@@ -0,0 +1,71 @@
+package com.proyecto.catalog.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cursor opaco para la paginacion search_after de Elasticsearch.
+ *
+ * Codifica en Base64 (URL safe) el motor que lo emitio, el ordenamiento y los
+ * valores de orden del ultimo resultado entregado, p. ej.
+ * {@code {"e":"elasticsearch","s":"price","d":"asc","v":[25.0,2]}}.
+ *
+ * Los ordenamientos por campo desempatan por ID numerico en ambos motores, asi
+ * que el cursor sigue valiendo si la busqueda pasa al otro motor. En relevance
+ * no: el score de Elasticsearch y el del indice en memoria no se comparan, y
+ * la busqueda vuelve a la primera pagina avisandolo en cursorReset.
+ */
+public final class SearchAfterCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SearchAfterCursor() {}
+
+    public static String encode(String engine, String sort, String direction, List<Object> sortValues) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("e", engine);
+        payload.put("s", sort);
+        payload.put("d", direction);
+        payload.put("v", sortValues);
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(MAPPER.writeValueAsBytes(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo codificar el cursor", e);
+        }
+    }
+
+    /**
+     * Decodifica un cursor validando que corresponda al mismo ordenamiento.
+     *
+     * @return valores de orden, o {@code null} si es de relevance y lo emitio el
+     *         otro motor: el motor cambio por una falla o recuperacion de
+     *         Elasticsearch, no por un error del cliente
+     * @throws IllegalArgumentException si el cursor es invalido o de otro ordenamiento
+     */
+    public static List<Object> decode(String cursor, String engine, String sort, String direction) {
+        Map<String, Object> payload;
+        try {
+            payload = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor),
+                new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+        if (!sort.equals(payload.get("s"))
+                || !direction.equalsIgnoreCase(String.valueOf(payload.get("d")))
+                || !(payload.get("v") instanceof List<?> values)
+                || values.isEmpty()) {
+            throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado");
+        }
+        if ("relevance".equals(sort) && !engine.equals(payload.get("e"))) {
+            return null;
+        }
+        return new ArrayList<Object>(values);
+    }
+}
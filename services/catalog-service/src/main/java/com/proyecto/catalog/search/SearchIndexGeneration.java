@@ -0,0 +1,70 @@
+package com.proyecto.catalog.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Generacion del indice de productos, compartida entre instancias en Redis.
+ *
+ * {@link ProductIndexManager} la incrementa despues de que cada escritura ya
+ * es visible para las busquedas (espera el refresco del indice), asi que los
+ * resultados cacheados con la generacion en la key quedan invalidados de una
+ * vez sin recorrer la cache, y un resultado guardado con la generacion actual
+ * ya incluye todas las escrituras anteriores.
+ */
+@Component
+public class SearchIndexGeneration {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexGeneration.class);
+
+    private static final String GENERATION_KEY = "search:index-generation";
+
+    // Si Redis perdio la key se reinicia desde el reloj para no repetir generaciones
+    private static final RedisScript<Long> BUMP = RedisScript.of(
+        "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incr', KEYS[1]) end " +
+        "redis.call('set', KEYS[1], ARGV[1]) " +
+        "return tonumber(ARGV[1])",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public SearchIndexGeneration(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Registra una escritura en el indice. Debe llamarse cuando la escritura ya
+     * es visible para las busquedas.
+     */
+    public void bump() {
+        try {
+            redisTemplate.execute(BUMP, List.of(GENERATION_KEY), String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            // El TTL de la cache de resultados acota cuanto puede durar un resultado viejo
+            log.warn("No se pudo incrementar la generacion del indice: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Generacion vigente con la que cachear, o {@code null} si Redis no esta
+     * disponible y no conviene cachear.
+     */
+    public Long current() {
+        try {
+            String value = redisTemplate.opsForValue().get(GENERATION_KEY);
+            if (value == null) {
+                redisTemplate.opsForValue().setIfAbsent(GENERATION_KEY, String.valueOf(System.currentTimeMillis()));
+                return null;
+            }
+            return Long.parseLong(value);
+        } catch (Exception e) {
+            log.debug("No se pudo leer la generacion del indice: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,87 +1,364 @@
 package com.proyecto.catalog.service;
 
+import com.proyecto.catalog.cache.TwoLevelCache;
+import com.proyecto.catalog.dto.ProductPage;
 import com.proyecto.catalog.model.Product;
 import com.proyecto.catalog.repository.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.WindowIterator;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * Servicio de Catalogo con cache Redis.
+ * Servicio de Catalogo con cache de dos niveles (memoria local + Redis).
  * 
  * Implementa el patron Cache-Aside:
  * - @Cacheable: Lee del cache si existe, sino consulta DB y guarda en cache
- * - @CacheEvict: Invalida el cache cuando se modifican datos
+ * - @CachePut/@CacheEvict: Actualiza o invalida solo la key del producto afectado
+ *
+ * El listado se pagina por keyset. Cada pagina se cachea en "product-pages"
+ * como una lista de IDs y sus productos se hidratan desde "products::{id}".
  */
 @Service
 public class CatalogService {
 
     private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
 
+    private static final String PRODUCTS_CACHE = "products";
+    private static final String PAGES_CACHE = "product-pages";
+    private static final Set<String> SORT_FIELDS = Set.of("id", "price", "name");
+    private static final Specification<Product> ALL_PRODUCTS = (root, query, builder) -> builder.conjunction();
+
     private final ProductRepository repository;
+    private final CacheManager cacheManager;
+    private final CatalogVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxBatchSize;
 
-    public CatalogService(ProductRepository repository) {
+    public CatalogService(ProductRepository repository,
+                          CacheManager cacheManager,
+                          CatalogVersionService versionService,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${app.catalog.page.default-size:20}") int defaultPageSize,
+                          @Value("${app.catalog.page.max-size:100}") int maxPageSize,
+                          @Value("${app.catalog.batch.max-ids:200}") int maxBatchSize) {
         this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
      * Obtiene todos los productos.
-     * El resultado se cachea con key "products::all"
+     * Recorre las paginas ordenadas por ID, cada una servida desde cache.
      */
-    @Cacheable(value = "products", key = "'all'")
     public List<Product> getAllProducts() {
-        log.info("Cache MISS - Consultando productos desde la base de datos");
-        return repository.findAll();
+        List<Product> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPage page = getProductPage("id", "asc", cursor, maxPageSize);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    /**
+     * Obtiene una pagina de productos por keyset.
+     *
+     * El orden siempre desempata por ID para que el cursor sea estable. Los
+     * productos sin precio o nombre solo aparecen al ordenar por ID.
+     *
+     * @throws IllegalArgumentException si el ordenamiento o el cursor son invalidos
+     */
+    public ProductPage getProductPage(String sortField, String direction, String cursor, Integer size) {
+        if (!SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Campo de ordenamiento no soportado: " + sortField);
+        }
+        Sort.Direction dir = Sort.Direction.fromString(direction);
+        int pageSize = (size == null || size < 1) ? defaultPageSize : Math.min(size, maxPageSize);
+        ScrollPosition position = (cursor == null || cursor.isBlank())
+            ? ScrollPosition.keyset()
+            : ProductCursor.decode(cursor, sortField, dir);
+
+        String pageKey = sortField + ":" + dir.name().toLowerCase() + ":" + pageSize + ":"
+            + (cursor == null || cursor.isBlank() ? "first" : cursor);
+        Cache pages = cacheManager.getCache(PAGES_CACHE);
+
+        ProductPageIndex index = pages.get(pageKey, ProductPageIndex.class);
+        List<Product> items;
+        if (index != null) {
+            // Un producto eliminado entre medio simplemente no aparece
+            items = loadProducts(index.getIds());
+        } else {
+            log.info("Cache MISS - Consultando pagina {} desde la base de datos", pageKey);
+            Window<Product> window = repository.findBy(ALL_PRODUCTS, query -> query
+                .sortBy(sortFor(sortField, dir))
+                .limit(pageSize)
+                .scroll(position));
+            items = window.getContent();
+
+            backfill(items);
+
+            String nextCursor = (window.hasNext() && !window.isEmpty())
+                ? ProductCursor.encode(sortField, dir, window.positionAt(window.size() - 1))
+                : null;
+            index = new ProductPageIndex(items.stream().map(Product::getId).toList(), nextCursor);
+            pages.put(pageKey, index);
+        }
+
+        return new ProductPage(items, index.getNextCursor(), pageSize, sortField, dir.name().toLowerCase());
+    }
+
+    /**
+     * Recorre todos los productos en lotes keyset sin materializar la lista completa.
+     * Cada lote es una consulta independiente, por lo que la memoria usada es constante.
+     */
+    public void streamProducts(String sortField, String direction, Consumer<Product> consumer) {
+        streamProducts(sortField, direction, maxPageSize, consumer);
+    }
+
+    /**
+     * Variante de {@link #streamProducts(String, String, Consumer)} con tamano de lote propio
+     * (p. ej. la reindexacion, que lee lotes mas grandes que una pagina).
+     */
+    public void streamProducts(String sortField, String direction, int batchSize, Consumer<Product> consumer) {
+        if (!SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Campo de ordenamiento no soportado: " + sortField);
+        }
+        Sort sort = sortFor(sortField, Sort.Direction.fromString(direction));
+        WindowIterator.of(position -> repository.findBy(ALL_PRODUCTS, query -> query
+                .sortBy(sort)
+                .limit(batchSize)
+                .scroll(position)))
+            .startingAt(ScrollPosition.keyset())
+            .forEachRemaining(consumer);
+    }
+
+    /**
+     * Precarga productos en el cache en lotes keyset ordenados por ID, junto
+     * con la primera pagina del listado por defecto.
+     *
+     * @param maxProducts maximo de productos a precargar; 0 o negativo para todos
+     * @return cantidad de productos precargados
+     */
+    public int warmUpProducts(int maxProducts, int batchSize) {
+        Sort sort = sortFor("id", Sort.Direction.ASC);
+        ScrollPosition position = ScrollPosition.keyset();
+        int loaded = 0;
+        while (true) {
+            int limit = maxProducts > 0 ? Math.min(batchSize, maxProducts - loaded) : batchSize;
+            if (limit <= 0) {
+                break;
+            }
+            ScrollPosition current = position;
+            Window<Product> window = repository.findBy(ALL_PRODUCTS, query -> query
+                .sortBy(sort)
+                .limit(limit)
+                .scroll(current));
+            backfill(window.getContent());
+            loaded += window.size();
+            if (!window.hasNext() || window.isEmpty()) {
+                break;
+            }
+            position = window.positionAt(window.size() - 1);
+        }
+        getProductPage("id", "asc", null, null);
+        return loaded;
     }
 
     /**
      * Obtiene un producto por ID.
-     * El resultado se cachea con key "products::{id}"
+     * El resultado se cachea con key "products::{id}". Con sync = true los
+     * fallos concurrentes de la misma key se resuelven con una sola consulta.
      */
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = PRODUCTS_CACHE, key = "#id", sync = true)
     public Optional<Product> getProductById(Long id) {
         log.info("Cache MISS - Consultando producto {} desde la base de datos", id);
         return repository.findById(id);
     }
 
+    /**
+     * Obtiene varios productos por ID, en el orden pedido y sin duplicados.
+     * Los IDs inexistentes se omiten.
+     *
+     * @throws IllegalArgumentException si se piden mas IDs que el maximo configurado
+     */
+    public List<Product> getProductsByIds(List<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Se permiten como maximo " + maxBatchSize + " IDs por consulta");
+        }
+        return loadProducts(distinct);
+    }
+
     /**
      * Actualiza el stock de un producto.
-     * Invalida todo el cache de productos para mantener consistencia.
+     * Escribe el producto actualizado en "products::{id}"; el stock no afecta
+     * el orden de las paginas, por lo que estas siguen siendo validas.
+     *
+     * @param expectedVersion version esperada (If-Match), o {@code null} para no verificarla
+     * @throws IllegalArgumentException si el stock es nulo o negativo
+     * @throws NoSuchElementException si el producto no existe
+     * @throws OptimisticLockingFailureException si la version no coincide o hubo una escritura concurrente
      */
-    @CacheEvict(value = "products", allEntries = true)
-    public Product updateStock(Long id, Integer newStock) {
-        log.info("Actualizando stock del producto {} a {}. Invalidando cache.", id, newStock);
+    @CachePut(value = PRODUCTS_CACHE, key = "#id")
+    public Product updateStock(Long id, Integer newStock, Long expectedVersion) {
+        if (newStock == null || newStock < 0) {
+            throw new IllegalArgumentException("El stock debe ser mayor o igual a cero");
+        }
+        log.info("Actualizando stock del producto {} a {}. Actualizando cache.", id, newStock);
         
-        return repository.findById(id)
+        Product updated = repository.findById(id)
             .map(product -> {
+                if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+                    throw new OptimisticLockingFailureException(
+                        "El producto " + id + " esta en la version " + product.getVersion());
+                }
                 product.setStock(newStock);
                 return repository.save(product);
             })
-            .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + id));
+            .orElseThrow(() -> new NoSuchElementException("Producto no encontrado: " + id));
+
+        versionService.recordChanges(List.of(updated));
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(id)));
+        return updated;
     }
 
     /**
      * Crea un nuevo producto.
-     * Invalida todo el cache de productos.
+     * Lo escribe en "products::{id}" e invalida los indices de paginas.
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @CachePut(value = PRODUCTS_CACHE, key = "#result.id")
+    @CacheEvict(value = PAGES_CACHE, allEntries = true)
     public Product createProduct(Product product) {
-        log.info("Creando nuevo producto: {}. Invalidando cache.", product.getName());
-        return repository.save(product);
+        log.info("Creando nuevo producto: {}. Actualizando cache.", product.getName());
+        Product created = repository.save(product);
+        versionService.recordChanges(List.of(created));
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(created.getId())));
+        return created;
     }
 
     /**
      * Elimina un producto.
-     * Invalida todo el cache de productos.
+     * Invalida "products::{id}" y los indices de paginas.
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = PRODUCTS_CACHE, key = "#id"),
+        @CacheEvict(value = PAGES_CACHE, allEntries = true)
+    })
     public void deleteProduct(Long id) {
         log.info("Eliminando producto {}. Invalidando cache.", id);
         repository.deleteById(id);
+        versionService.recordDeletion(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(id)));
+    }
+
+    /**
+     * Invalida todo el cache de productos y paginas de una sola vez, tras
+     * cambios masivos hechos fuera de JPA (p. ej. la importacion masiva).
+     * El cache se limpia antes de descartar las versiones publicadas, para que
+     * una lectura concurrente no vuelva a publicar una version vieja.
+     */
+    @Caching(evict = {
+        @CacheEvict(value = PRODUCTS_CACHE, allEntries = true, beforeInvocation = true),
+        @CacheEvict(value = PAGES_CACHE, allEntries = true, beforeInvocation = true)
+    })
+    public void evictAllProducts() {
+        log.info("Invalidando todo el cache de productos.");
+        versionService.recordBulkChange();
+    }
+
+    /**
+     * Escribe en cache productos modificados fuera de este servicio (p. ej. por
+     * descuentos atomicos de stock) y los encola para reindexar. Dentro de una
+     * transaccion ambas cosas se aplican despues del commit.
+     */
+    public void refreshCachedProducts(Collection<Product> products) {
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        products.forEach(p -> cache.put(p.getId(), p));
+        versionService.recordChanges(products);
+        eventPublisher.publishEvent(new ProductChangedEvent(products.stream().map(Product::getId).toList()));
+    }
+
+    /**
+     * Carga un lote de productos en dos viajes como maximo: un MGET al cache
+     * y una consulta IN a la base de datos para los faltantes, que luego se
+     * escriben en Redis en un solo pipeline.
+     */
+    private List<Product> loadProducts(List<Long> ids) {
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        TwoLevelCache products = TwoLevelCache.unwrap(cache);
+
+        Map<Long, Product> found = new LinkedHashMap<>();
+        if (products != null) {
+            products.getAll(ids).forEach((key, value) -> found.put(Long.valueOf(key), (Product) value));
+        } else {
+            for (Long id : ids) {
+                Product cached = cache.get(id, Product.class);
+                if (cached != null) {
+                    found.put(id, cached);
+                }
+            }
+        }
+
+        List<Long> missing = ids.stream().filter(id -> !found.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            log.info("Cache MISS - Consultando {} productos desde la base de datos", missing.size());
+            List<Product> loaded = repository.findAllById(missing);
+            backfill(loaded);
+            loaded.forEach(p -> found.put(p.getId(), p));
+        }
+
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Escribe en cache productos recien leidos de la base de datos.
+     */
+    private void backfill(List<Product> items) {
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        TwoLevelCache products = TwoLevelCache.unwrap(cache);
+        if (products != null) {
+            Map<Long, Product> entries = new LinkedHashMap<>();
+            items.forEach(p -> entries.put(p.getId(), p));
+            products.putAll(entries);
+        } else {
+            items.forEach(p -> cache.put(p.getId(), p));
+        }
+    }
+
+    private static Sort sortFor(String sortField, Sort.Direction direction) {
+        Sort sort = Sort.by(direction, sortField);
+        return "id".equals(sortField) ? sort : sort.and(Sort.by(direction, "id"));
     }
 }
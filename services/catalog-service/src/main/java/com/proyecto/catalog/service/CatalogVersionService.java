@@ -0,0 +1,172 @@
+package com.proyecto.catalog.service;
+
+import com.proyecto.catalog.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versiones publicadas en Redis para responder GETs condicionales sin tocar
+ * la base de datos ni deserializar los productos cacheados.
+ *
+ * - "catalog:version": version global del catalogo, cambia con cualquier escritura.
+ *   Se inicializa con el reloj para no repetir valores si Redis pierde la key.
+ * - "catalog:product-version::{id}": ultima version conocida de cada producto,
+ *   solo avanza (nunca retrocede) y expira con el mismo TTL que el cache.
+ */
+@Service
+public class CatalogVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersionService.class);
+
+    private static final String CATALOG_VERSION_KEY = "catalog:version";
+    private static final String PRODUCT_VERSION_PREFIX = "catalog:product-version::";
+
+    private static final int SCAN_BATCH = 1000;
+
+    private static final RedisScript<Long> SET_IF_GREATER = RedisScript.of(
+        "local current = redis.call('get', KEYS[1]) " +
+        "if (not current) or tonumber(current) < tonumber(ARGV[1]) then " +
+        "  redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 " +
+        "end " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) return 0",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public CatalogVersionService(StringRedisTemplate redisTemplate,
+                                 @Value("${app.cache.version-ttl:5m}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Version global del catalogo, o {@code null} si Redis no esta disponible.
+     */
+    public Long catalogVersion() {
+        try {
+            String value = redisTemplate.opsForValue().get(CATALOG_VERSION_KEY);
+            if (value == null) {
+                redisTemplate.opsForValue().setIfAbsent(CATALOG_VERSION_KEY, String.valueOf(System.currentTimeMillis()));
+                value = redisTemplate.opsForValue().get(CATALOG_VERSION_KEY);
+            }
+            return value != null ? Long.valueOf(value) : null;
+        } catch (Exception e) {
+            log.warn("No se pudo leer la version del catalogo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Ultima version conocida de un producto, o {@code null} si no se conoce.
+     */
+    public Long productVersion(Long productId) {
+        try {
+            String value = redisTemplate.opsForValue().get(PRODUCT_VERSION_PREFIX + productId);
+            return value != null ? Long.valueOf(value) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Publica la version de un producto leido, para que los siguientes GETs
+     * condicionales no necesiten cargarlo.
+     */
+    public void rememberProductVersion(Product product) {
+        if (product.getId() == null || product.getVersion() == null) {
+            return;
+        }
+        try {
+            setIfGreater(product);
+        } catch (Exception e) {
+            log.debug("No se pudo publicar la version del producto {}: {}", product.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Registra productos modificados: avanza sus versiones y la del catalogo.
+     * Dentro de una transaccion se aplica despues del commit.
+     */
+    public void recordChanges(Collection<Product> products) {
+        afterCommit(() -> {
+            products.forEach(this::setIfGreater);
+            redisTemplate.opsForValue().increment(CATALOG_VERSION_KEY);
+        });
+    }
+
+    /**
+     * Registra la eliminacion de un producto.
+     */
+    public void recordDeletion(Long productId) {
+        afterCommit(() -> {
+            redisTemplate.delete(PRODUCT_VERSION_PREFIX + productId);
+            redisTemplate.opsForValue().increment(CATALOG_VERSION_KEY);
+        });
+    }
+
+    /**
+     * Registra un cambio masivo: descarta todas las versiones por producto
+     * (se vuelven a publicar en la siguiente lectura) y avanza la del catalogo.
+     */
+    public void recordBulkChange() {
+        afterCommit(() -> {
+            List<String> batch = new ArrayList<>(SCAN_BATCH);
+            ScanOptions options = ScanOptions.scanOptions().match(PRODUCT_VERSION_PREFIX + "*").count(SCAN_BATCH).build();
+            try (Cursor<String> keys = redisTemplate.scan(options)) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == SCAN_BATCH) {
+                        redisTemplate.delete(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.delete(batch);
+            }
+            redisTemplate.opsForValue().increment(CATALOG_VERSION_KEY);
+        });
+    }
+
+    private void setIfGreater(Product product) {
+        if (product.getId() == null || product.getVersion() == null) {
+            return;
+        }
+        redisTemplate.execute(SET_IF_GREATER, List.of(PRODUCT_VERSION_PREFIX + product.getId()),
+            String.valueOf(product.getVersion()), String.valueOf(ttl.toMillis()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("No se pudo registrar el cambio de version: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.proyecto.catalog.service;
+
+/**
+ * El producto no tiene stock suficiente para la cantidad pedida.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, int requested) {
+        super("Stock insuficiente para el producto " + productId + " (solicitado: " + requested + ")");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
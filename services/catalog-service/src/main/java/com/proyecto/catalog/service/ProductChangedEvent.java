@@ -0,0 +1,23 @@
+package com.proyecto.catalog.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evento publicado cuando cambian (o se eliminan) productos en PostgreSQL.
+ *
+ * Solo lleva los IDs: los consumidores leen el estado actual al procesarlo,
+ * por lo que varios eventos del mismo producto se pueden fusionar en uno.
+ */
+public class ProductChangedEvent {
+
+    private final List<Long> productIds;
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,79 @@
+package com.proyecto.catalog.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cursor opaco para la paginacion keyset de productos.
+ *
+ * Codifica en Base64 (URL safe) el campo y la direccion de ordenamiento junto
+ * con los valores de la ultima fila entregada, p. ej.
+ * {@code {"s":"price","d":"asc","k":{"price":25.0,"id":2}}}.
+ */
+public final class ProductCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ProductCursor() {}
+
+    public static String encode(String sortField, Sort.Direction direction, ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Solo se soportan cursores keyset");
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("s", sortField);
+        payload.put("d", direction.name().toLowerCase());
+        payload.put("k", keyset.getKeys());
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(MAPPER.writeValueAsBytes(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo codificar el cursor", e);
+        }
+    }
+
+    /**
+     * Decodifica un cursor validando que corresponda al mismo ordenamiento.
+     *
+     * @throws IllegalArgumentException si el cursor es invalido o de otro ordenamiento
+     */
+    public static ScrollPosition decode(String cursor, String sortField, Sort.Direction direction) {
+        Map<String, Object> payload;
+        try {
+            payload = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor),
+                new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+        if (!sortField.equals(payload.get("s"))
+                || !direction.name().equalsIgnoreCase(String.valueOf(payload.get("d")))
+                || !(payload.get("k") instanceof Map<?, ?> rawKeys)) {
+            throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado");
+        }
+
+        // JSON pierde el tipo numerico: se restaura el de cada atributo de Product
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<?, ?> entry : rawKeys.entrySet()) {
+                String property = String.valueOf(entry.getKey());
+                Object value = entry.getValue();
+                keys.put(property, switch (property) {
+                    case "id" -> value == null ? null : ((Number) value).longValue();
+                    case "price" -> value == null ? null : ((Number) value).doubleValue();
+                    case "name" -> value == null ? null : value.toString();
+                    default -> throw new IllegalArgumentException("Cursor invalido");
+                });
+            }
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
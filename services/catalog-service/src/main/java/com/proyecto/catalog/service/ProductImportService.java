@@ -0,0 +1,348 @@
+package com.proyecto.catalog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.catalog.document.ProductDocument;
+import com.proyecto.catalog.dto.ImportResult;
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.search.ProductIndexManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Importacion masiva de productos desde NDJSON o CSV.
+ *
+ * El archivo se lee linea a linea y se procesa por lotes:
+ * - Cada lote es un solo INSERT ... SELECT FROM unnest(...) con upsert por SKU
+ *   (ON CONFLICT), un viaje a la base de datos por lote sin depender de IDs
+ *   generados por Hibernate.
+ * - El RETURNING devuelve solo las filas insertadas o realmente modificadas,
+ *   que se indexan en Elasticsearch con una peticion bulk por lote.
+ * - El cache se invalida una sola vez al final.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String UPSERT_SQL = """
+        insert into products (sku, name, price, stock, version)
+        select t.sku, t.name, t.price, t.stock, 0
+        from unnest(?::varchar[], ?::varchar[], ?::float8[], ?::int4[]) as t(sku, name, price, stock)
+        on conflict (sku) do update
+            set name = excluded.name, price = excluded.price, stock = excluded.stock,
+                version = products.version + 1
+            where (products.name, products.price, products.stock)
+                is distinct from (excluded.name, excluded.price, excluded.stock)
+        returning id, sku, name, price, stock, version
+        """;
+
+    private static final List<String> CSV_COLUMNS = List.of("sku", "name", "price", "stock");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductIndexManager indexManager;
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                ProductIndexManager indexManager,
+                                CatalogService catalogService,
+                                ObjectMapper objectMapper,
+                                @Value("${app.catalog.import.batch-size:1000}") int batchSize,
+                                @Value("${app.catalog.import.max-errors:100}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexManager = indexManager;
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Importa productos en formato NDJSON: un objeto {@code {"sku","name","price","stock"}} por linea.
+     */
+    public ImportResult importNdjson(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        try (run; BufferedReader reader = reader(input)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(lineNumber, objectMapper.readValue(line, Product.class));
+                } catch (JsonProcessingException e) {
+                    run.addInvalid(lineNumber, "JSON invalido");
+                }
+            }
+            return run.finish();
+        }
+    }
+
+    /**
+     * Importa productos en formato CSV con cabecera. Columnas requeridas:
+     * sku, name, price, stock (en cualquier orden). Los campos pueden ir entre
+     * comillas dobles; no se admiten saltos de linea dentro de un campo.
+     */
+    public ImportResult importCsv(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        try (run; BufferedReader reader = reader(input)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return run.finish();
+            }
+            List<String> headerColumns = parseCsvLine(header).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+            int[] positions = CSV_COLUMNS.stream().mapToInt(headerColumns::indexOf).toArray();
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < 0) {
+                    throw new IllegalArgumentException("Falta la columna '" + CSV_COLUMNS.get(i) + "' en la cabecera CSV");
+                }
+            }
+
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    List<String> fields = parseCsvLine(line);
+                    Product product = new Product(
+                        field(fields, positions[1]),
+                        parseNumber(field(fields, positions[2]), Double::valueOf),
+                        parseNumber(field(fields, positions[3]), Integer::valueOf));
+                    product.setSku(field(fields, positions[0]));
+                    run.add(lineNumber, product);
+                } catch (IllegalArgumentException e) {
+                    run.addInvalid(lineNumber, e.getMessage());
+                }
+            }
+            return run.finish();
+        }
+    }
+
+    /**
+     * Estado de una importacion en curso: lote pendiente y contadores.
+     *
+     * Se cierra aunque la importacion falle a la mitad: los lotes anteriores ya
+     * quedaron confirmados, asi que el indice y el cache se actualizan igual.
+     */
+    private class ImportRun implements AutoCloseable {
+
+        private final ImportResult result = new ImportResult();
+        private final long startedAt = System.nanoTime();
+        // Un SKU repetido dentro del mismo lote romperia el ON CONFLICT: gana el ultimo
+        private final Map<String, Product> batch = new LinkedHashMap<>();
+        private boolean changed;
+
+        void add(long lineNumber, Product product) {
+            result.setReceived(result.getReceived() + 1);
+            String error = validate(product);
+            if (error != null) {
+                reject(lineNumber, error);
+                return;
+            }
+            product.setSku(product.getSku().trim());
+            batch.put(product.getSku(), product);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void addInvalid(long lineNumber, String reason) {
+            result.setReceived(result.getReceived() + 1);
+            reject(lineNumber, reason);
+        }
+
+        private void reject(long lineNumber, String reason) {
+            result.setRejected(result.getRejected() + 1);
+            if (result.getErrors().size() < maxErrors) {
+                result.getErrors().add("Linea " + lineNumber + ": " + reason);
+            }
+        }
+
+        ImportResult finish() {
+            flush();
+            result.setDurationMs((System.nanoTime() - startedAt) / 1_000_000);
+            log.info("Importacion completada: {} leidos, {} insertados, {} actualizados, {} sin cambios, {} rechazados en {} ms",
+                result.getReceived(), result.getInserted(), result.getUpdated(), result.getUnchanged(),
+                result.getRejected(), result.getDurationMs());
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (changed) {
+                changed = false;
+                refreshIndex();
+                catalogService.evictAllProducts();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Product> rows = new ArrayList<>(batch.values());
+            batch.clear();
+
+            List<Product> changedRows = upsert(rows);
+            // Las filas insertadas quedan en version 0; las actualizadas la incrementan
+            long inserted = changedRows.stream().filter(p -> p.getVersion() == 0L).count();
+            result.setInserted(result.getInserted() + inserted);
+            result.setUpdated(result.getUpdated() + changedRows.size() - inserted);
+            result.setUnchanged(result.getUnchanged() + rows.size() - changedRows.size());
+
+            if (!changedRows.isEmpty()) {
+                changed = true;
+                index(changedRows);
+            }
+            log.debug("Lote importado: {} filas, {} con cambios", rows.size(), changedRows.size());
+        }
+
+        private void index(List<Product> products) {
+            try {
+                indexManager.index(products.stream().map(ProductDocument::fromProduct).toList());
+                result.setIndexed(result.getIndexed() + products.size());
+            } catch (Exception e) {
+                // La base de datos es la fuente de verdad: /catalog/search/sync repara el indice
+                log.warn("No se pudo indexar un lote de {} productos: {}", products.size(), e.getMessage());
+                result.setIndexFailures(result.getIndexFailures() + products.size());
+            }
+        }
+
+        private void refreshIndex() {
+            try {
+                indexManager.refresh();
+            } catch (Exception e) {
+                log.warn("No se pudo refrescar el indice de productos: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ejecuta el upsert de un lote y devuelve las filas insertadas o modificadas.
+     */
+    private List<Product> upsert(List<Product> rows) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+            statement.setArray(1, array(connection, "varchar", rows.stream().map(Product::getSku).toArray()));
+            statement.setArray(2, array(connection, "varchar", rows.stream().map(Product::getName).toArray()));
+            statement.setArray(3, array(connection, "float8", rows.stream().map(Product::getPrice).toArray()));
+            statement.setArray(4, array(connection, "int4", rows.stream().map(Product::getStock).toArray()));
+            return statement;
+        }, (rs, rowNum) -> {
+            Product product = new Product(rs.getString("name"), rs.getDouble("price"), rs.getInt("stock"));
+            product.setId(rs.getLong("id"));
+            product.setSku(rs.getString("sku"));
+            product.setVersion(rs.getLong("version"));
+            return product;
+        });
+    }
+
+    private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+
+    private static String validate(Product product) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            return "sku es obligatorio";
+        }
+        if (product.getSku().trim().length() > 64) {
+            return "sku supera los 64 caracteres";
+        }
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "name es obligatorio";
+        }
+        if (product.getPrice() == null || product.getPrice() < 0) {
+            return "price debe ser mayor o igual a cero";
+        }
+        if (product.getStock() == null || product.getStock() < 0) {
+            return "stock debe ser mayor o igual a cero";
+        }
+        return null;
+    }
+
+    private static BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static String field(List<String> fields, int position) {
+        if (position >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(position).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parseNumber(String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("valor numerico invalido '" + value + "'");
+        }
+    }
+
+    /**
+     * Separa una linea CSV respetando comillas dobles ({@code ""} escapa una comilla).
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
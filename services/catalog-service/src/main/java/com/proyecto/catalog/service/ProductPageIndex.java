@@ -0,0 +1,20 @@
+package com.proyecto.catalog.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Entrada del cache "product-pages": solo guarda los IDs de la pagina y el
+ * cursor siguiente. Los productos se hidratan desde "products::{id}", por lo
+ * que un cambio de stock no obliga a invalidar ninguna pagina.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageIndex {
+    private List<Long> ids;
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.proyecto.catalog.service;
+
+/**
+ * La reserva vencio antes de confirmarse; su stock se devuelve al producto.
+ */
+public class ReservationExpiredException extends RuntimeException {
+
+    private final String reservationId;
+
+    public ReservationExpiredException(String reservationId) {
+        super("La reserva " + reservationId + " vencio");
+        this.reservationId = reservationId;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+}
@@ -0,0 +1,12 @@
+package com.proyecto.catalog.service;
+
+/**
+ * Demasiadas peticiones concurrentes sobre el mismo producto (o su franja de
+ * lock): no se pudo esperar turno dentro de app.stock.lock-timeout.
+ */
+public class StockBusyException extends RuntimeException {
+
+    public StockBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,266 @@
+package com.proyecto.catalog.service;
+
+import com.proyecto.catalog.dto.ReservationItem;
+import com.proyecto.catalog.dto.ReservationRequest;
+import com.proyecto.catalog.dto.ReservationResponse;
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.model.StockReservation;
+import com.proyecto.catalog.repository.ProductRepository;
+import com.proyecto.catalog.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Operaciones de stock seguras ante concurrencia.
+ *
+ * Cada descuento es un UPDATE condicional ({@code stock >= cantidad}), por lo
+ * que nunca se vende de mas ni se pierden actualizaciones. Para productos muy
+ * demandados, las peticiones de la misma instancia se serializan antes en un
+ * lock por franja (striped lock) fuera de la transaccion: asi solo una conexion
+ * por instancia espera el lock de fila, en lugar de agotar el pool. La espera
+ * del lock esta acotada por app.stock.lock-timeout: si un producto recibe mas
+ * peticiones de las que se pueden atender, las que no consiguen turno fallan
+ * con {@link StockBusyException} en lugar de acumular hilos de Tomcat.
+ */
+@Service
+public class StockService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockService.class);
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final CatalogService catalogService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final long lockTimeoutNanos;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+
+    public StockService(ProductRepository productRepository,
+                        StockReservationRepository reservationRepository,
+                        CatalogService catalogService,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.stock.lock-stripes:64}") int lockStripes,
+                        @Value("${app.stock.lock-timeout:200ms}") Duration lockTimeout,
+                        @Value("${app.stock.reservation.default-ttl:15m}") Duration defaultTtl,
+                        @Value("${app.stock.reservation.max-ttl:1h}") Duration maxTtl) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.catalogService = catalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutNanos = lockTimeout.toNanos();
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+    }
+
+    /**
+     * Descuenta stock de un producto de forma atomica.
+     *
+     * @throws NoSuchElementException si el producto no existe
+     * @throws InsufficientStockException si no hay stock suficiente
+     * @throws StockBusyException si no se consiguio turno dentro de app.stock.lock-timeout
+     */
+    public Product decrementStock(Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+        return withStripes(List.of(productId), () -> transactionTemplate.execute(status -> {
+            decrementOrFail(productId, quantity);
+            Product updated = productRepository.findById(productId).orElseThrow();
+            catalogService.refreshCachedProducts(List.of(updated));
+            log.info("Stock del producto {} descontado en {}", productId, quantity);
+            return updated;
+        }));
+    }
+
+    /**
+     * Reserva stock de varios productos en una sola transaccion: se reservan
+     * todos o ninguno. Los productos se procesan ordenados por ID para que dos
+     * reservas concurrentes tomen los locks de fila en el mismo orden.
+     *
+     * @throws StockBusyException si no se consiguio turno dentro de app.stock.lock-timeout
+     */
+    public ReservationResponse reserve(ReservationRequest request) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("La reserva debe incluir al menos un producto");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationItem item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new IllegalArgumentException("Cada item requiere productId y una cantidad mayor a cero");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultTtl;
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("ttlSeconds debe estar entre 1 y " + maxTtl.toSeconds());
+        }
+
+        return withStripes(quantities.keySet(), () -> transactionTemplate.execute(status -> {
+            quantities.forEach(this::decrementOrFail);
+
+            String reservationId = UUID.randomUUID().toString();
+            LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+            reservationRepository.saveAll(quantities.entrySet().stream()
+                .map(e -> new StockReservation(reservationId, e.getKey(), e.getValue(), expiresAt))
+                .toList());
+
+            catalogService.refreshCachedProducts(productRepository.findAllById(quantities.keySet()));
+            log.info("Reserva {} creada para {} productos, expira {}", reservationId, quantities.size(), expiresAt);
+            return toResponse(reservationId, StockReservation.RESERVED, expiresAt, quantities);
+        }));
+    }
+
+    /**
+     * Confirma una reserva: el stock queda descontado definitivamente.
+     *
+     * @throws ReservationExpiredException si la reserva vencio aunque el barrido todavia no la haya liberado
+     */
+    public ReservationResponse confirm(String reservationId) {
+        return transactionTemplate.execute(status -> {
+            List<StockReservation> lines = findReservation(reservationId);
+            LocalDateTime now = LocalDateTime.now();
+            if (reservationRepository.confirmIfActive(reservationId, now) == 0) {
+                StockReservation line = lines.get(0);
+                if (StockReservation.RESERVED.equals(line.getStatus()) && !line.getExpiresAt().isAfter(now)) {
+                    throw new ReservationExpiredException(reservationId);
+                }
+                requireReserved(reservationId, 0);
+            }
+            log.info("Reserva {} confirmada", reservationId);
+            return toResponse(lines, StockReservation.CONFIRMED);
+        });
+    }
+
+    /**
+     * Libera una reserva y devuelve su stock.
+     */
+    public ReservationResponse release(String reservationId) {
+        return transactionTemplate.execute(status -> {
+            List<StockReservation> lines = findReservation(reservationId);
+            requireReserved(reservationId, reservationRepository.transitionFromReserved(reservationId, StockReservation.RELEASED));
+            restock(lines);
+            log.info("Reserva {} liberada", reservationId);
+            return toResponse(lines, StockReservation.RELEASED);
+        });
+    }
+
+    /**
+     * Libera periodicamente las reservas vencidas. La transicion condicional
+     * garantiza que, con varias instancias, el stock se devuelva una sola vez.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.reservation.expiry-check-interval:30s}")
+    public void releaseExpiredReservations() {
+        List<String> expired = reservationRepository.findExpiredReservationIds(
+            LocalDateTime.now(), PageRequest.ofSize(100));
+        for (String reservationId : expired) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (reservationRepository.transitionFromReserved(reservationId, StockReservation.EXPIRED) == 1) {
+                        restock(reservationRepository.findByReservationId(reservationId));
+                        log.info("Reserva {} expirada, stock devuelto", reservationId);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("No se pudo expirar la reserva {}: {}", reservationId, e.getMessage());
+            }
+        }
+    }
+
+    private void decrementOrFail(Long productId, int quantity) {
+        if (productRepository.decrementStock(productId, quantity) == 0) {
+            if (!productRepository.existsById(productId)) {
+                throw new NoSuchElementException("Producto no encontrado: " + productId);
+            }
+            throw new InsufficientStockException(productId, quantity);
+        }
+    }
+
+    private void restock(List<StockReservation> lines) {
+        lines.forEach(line -> productRepository.incrementStock(line.getProductId(), line.getQuantity()));
+        catalogService.refreshCachedProducts(productRepository.findAllById(
+            lines.stream().map(StockReservation::getProductId).distinct().toList()));
+    }
+
+    private List<StockReservation> findReservation(String reservationId) {
+        List<StockReservation> lines = reservationRepository.findByReservationId(reservationId);
+        if (lines.isEmpty()) {
+            throw new NoSuchElementException("Reserva no encontrada: " + reservationId);
+        }
+        return lines;
+    }
+
+    private static void requireReserved(String reservationId, int updated) {
+        if (updated == 0) {
+            throw new IllegalStateException("La reserva " + reservationId + " ya no esta en estado RESERVED");
+        }
+    }
+
+    /**
+     * Toma los locks de las franjas en orden ascendente (sin deadlocks entre
+     * reservas con varios productos) y ejecuta la accion. La espera total por
+     * todos los locks no supera app.stock.lock-timeout.
+     */
+    private <T> T withStripes(Collection<Long> productIds, Supplier<T> action) {
+        int[] indexes = productIds.stream()
+            .mapToInt(id -> Math.floorMod(Long.hashCode(id), stripes.length))
+            .distinct()
+            .sorted()
+            .toArray();
+        long deadline = System.nanoTime() + lockTimeoutNanos;
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                if (!stripes[index].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new StockBusyException("Demasiadas peticiones concurrentes sobre los productos " + productIds);
+                }
+                acquired++;
+            }
+            return action.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StockBusyException("Espera de stock interrumpida");
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    private static ReservationResponse toResponse(List<StockReservation> lines, String status) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        lines.forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        return toResponse(lines.get(0).getReservationId(), status, lines.get(0).getExpiresAt(), quantities);
+    }
+
+    private static ReservationResponse toResponse(String reservationId, String status,
+                                                  LocalDateTime expiresAt, Map<Long, Integer> quantities) {
+        List<ReservationItem> items = quantities.entrySet().stream()
+            .map(e -> new ReservationItem(e.getKey(), e.getValue()))
+            .toList();
+        return new ReservationResponse(reservationId, status, expiresAt, items);
+    }
+}
@@ -0,0 +1,172 @@
+package com.proyecto.catalog.service;
+
+import com.proyecto.catalog.dto.ReservationItem;
+import com.proyecto.catalog.dto.ReservationRequest;
+import com.proyecto.catalog.model.Product;
+import com.proyecto.catalog.repository.ProductRepository;
+import com.proyecto.catalog.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cientos de descuentos y reservas en paralelo sobre los mismos productos:
+ * nunca se vende de mas y el stock final cuadra con las operaciones exitosas.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+class StockServiceConcurrencyTest {
+
+    private static final int REQUESTS = 400;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void decrementNeverOversells() throws Exception {
+        Long productId = productRepository.save(new Product("Flash sale", 10.0, 100)).getId();
+        StockService stockService = stockService(mock(CatalogService.class), Duration.ofSeconds(30));
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                stockService.decrementStock(productId, 1);
+                sold.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertThat(sold.get()).isEqualTo(100);
+        assertThat(rejected.get()).isEqualTo(REQUESTS - 100);
+        assertThat(productRepository.findById(productId).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    void multiItemReservationsNeverOversell() throws Exception {
+        Long first = productRepository.save(new Product("A", 10.0, 60)).getId();
+        Long second = productRepository.save(new Product("B", 10.0, 90)).getId();
+        StockService stockService = stockService(mock(CatalogService.class), Duration.ofSeconds(30));
+
+        AtomicInteger reserved = new AtomicInteger();
+        runConcurrently(() -> {
+            ReservationRequest request = new ReservationRequest();
+            // Orden invertido a proposito: el servicio ordena los productos antes de bloquear
+            request.setItems(List.of(new ReservationItem(second, 3), new ReservationItem(first, 2)));
+            try {
+                stockService.reserve(request);
+                reserved.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                // Todo o nada: una reserva rechazada no descuenta ningun producto
+            }
+            return null;
+        });
+
+        assertThat(reserved.get()).isEqualTo(30);
+        assertThat(productRepository.findById(first).orElseThrow().getStock()).isZero();
+        assertThat(productRepository.findById(second).orElseThrow().getStock()).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(60);
+    }
+
+    @Test
+    void busyProductFailsFastInsteadOfQueueing() throws Exception {
+        Long productId = productRepository.save(new Product("Hot", 10.0, 10)).getId();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogService catalogService = mock(CatalogService.class);
+        // La primera peticion se queda con el lock de la franja hasta que el test la libere
+        doAnswer(invocation -> {
+            holding.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(catalogService).refreshCachedProducts(anyCollection());
+        StockService stockService = stockService(catalogService, Duration.ofMillis(100));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Product> slow = executor.submit(() -> stockService.decrementStock(productId, 1));
+            assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> stockService.decrementStock(productId, 1))
+                .isInstanceOf(StockBusyException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+            release.countDown();
+            slow.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(productRepository.findById(productId).orElseThrow().getStock()).isEqualTo(9);
+    }
+
+    private StockService stockService(CatalogService catalogService, Duration lockTimeout) {
+        return new StockService(productRepository, reservationRepository, catalogService, transactionManager,
+            64, lockTimeout, Duration.ofMinutes(15), Duration.ofHours(1));
+    }
+
+    /**
+     * Ejecuta la tarea REQUESTS veces desde THREADS hilos que arrancan a la vez.
+     */
+    private static void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
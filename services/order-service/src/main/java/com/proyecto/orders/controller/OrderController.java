@@ -1,8 +1,15 @@
 package com.proyecto.orders.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.orders.dto.BulkOrderResult;
+import com.proyecto.orders.dto.OrderFilter;
+import com.proyecto.orders.dto.OrderPage;
+import com.proyecto.orders.dto.OrderSummary;
 import com.proyecto.orders.model.Order;
 import com.proyecto.orders.repository.OrderRepository;
-import com.proyecto.orders.service.OrderEventPublisher;
+import com.proyecto.orders.service.BulkOrderService;
+import com.proyecto.orders.service.IdempotencyKeyReusedException;
+import com.proyecto.orders.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,9 +19,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -25,67 +40,241 @@ public class OrderController {
 
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderRepository repository;
-    private final OrderEventPublisher eventPublisher;
+    private final OrderService orderService;
+    private final BulkOrderService bulkOrderService;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderRepository repository, OrderEventPublisher eventPublisher) {
+    public OrderController(OrderRepository repository,
+                           OrderService orderService,
+                           BulkOrderService bulkOrderService,
+                           ObjectMapper objectMapper) {
         this.repository = repository;
-        this.eventPublisher = eventPublisher;
+        this.orderService = orderService;
+        this.bulkOrderService = bulkOrderService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
-        summary = "Obtener todas las ordenes",
-        description = "Retorna una lista con todas las ordenes registradas en el sistema"
-    )
-    @ApiResponse(
-        responseCode = "200",
-        description = "Lista de ordenes obtenida exitosamente",
-        content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))
+        summary = "Listar ordenes",
+        description = "Retorna las ordenes mas nuevas que cumplen los filtros, como lista simple. " +
+            "La cantidad esta acotada por app.orders.list.max-size; para recorrer todas usar /orders/page o /orders/export."
     )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Lista de ordenes obtenida exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderSummary.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Rango de fechas invalido",
+            content = @Content
+        )
+    })
     @GetMapping
-    public List<Order> getAll() {
-        return repository.findAll();
+    public ResponseEntity<List<OrderSummary>> getAll(
+        @Parameter(description = "Estado exacto de la orden", example = "CREATED")
+        @RequestParam(name = "status", required = false) String status,
+        @Parameter(description = "Nombre exacto del cliente", example = "Juan Perez")
+        @RequestParam(name = "customerName", required = false) String customerName,
+        @Parameter(description = "Creadas desde (inclusive), ISO-8601", example = "2024-01-01T00:00:00")
+        @RequestParam(name = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @Parameter(description = "Creadas antes de (exclusive), ISO-8601", example = "2024-02-01T00:00:00")
+        @RequestParam(name = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        @Parameter(description = "Cantidad maxima de ordenes (acotada por configuracion)", example = "100")
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.list(filter(status, customerName, createdFrom, createdTo), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+        summary = "Obtener pagina de ordenes",
+        description = "Retorna una pagina de ordenes paginada por cursor (keyset), de la mas nueva a la mas vieja, " +
+            "con filtros opcionales por estado, cliente y rango de fechas de creacion."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Pagina obtenida exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderPage.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cursor o rango de fechas invalido",
+            content = @Content
+        )
+    })
+    @GetMapping("/page")
+    public ResponseEntity<OrderPage> getPage(
+        @Parameter(description = "Estado exacto de la orden", example = "CREATED")
+        @RequestParam(name = "status", required = false) String status,
+        @Parameter(description = "Nombre exacto del cliente", example = "Juan Perez")
+        @RequestParam(name = "customerName", required = false) String customerName,
+        @Parameter(description = "Creadas desde (inclusive), ISO-8601", example = "2024-01-01T00:00:00")
+        @RequestParam(name = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @Parameter(description = "Creadas antes de (exclusive), ISO-8601", example = "2024-02-01T00:00:00")
+        @RequestParam(name = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        @Parameter(description = "Cursor devuelto por la pagina anterior")
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @Parameter(description = "Tamano de pagina (maximo configurable)", example = "20")
+        @RequestParam(name = "size", required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.getPage(filter(status, customerName, createdFrom, createdTo), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(
+        summary = "Exportar ordenes en streaming",
+        description = "Escribe como NDJSON (una orden por linea) todas las ordenes que cumplen los filtros, de la mas " +
+            "nueva a la mas vieja. Lee en lotes keyset de app.orders.export.batch-size y escribe cada lote apenas llega. " +
+            "Para retomar una exportacion cortada, pasar en beforeId el id de la ultima linea recibida."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Ordenes en formato NDJSON",
+            content = @Content(mediaType = "application/x-ndjson")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Rango de fechas invalido",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+        @Parameter(description = "Estado exacto de la orden", example = "CREATED")
+        @RequestParam(name = "status", required = false) String status,
+        @Parameter(description = "Nombre exacto del cliente", example = "Juan Perez")
+        @RequestParam(name = "customerName", required = false) String customerName,
+        @Parameter(description = "Creadas desde (inclusive), ISO-8601", example = "2024-01-01T00:00:00")
+        @RequestParam(name = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @Parameter(description = "Creadas antes de (exclusive), ISO-8601", example = "2024-02-01T00:00:00")
+        @RequestParam(name = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        @Parameter(description = "Id de la ultima orden recibida, para retomar la exportacion", example = "15230")
+        @RequestParam(name = "beforeId", required = false) Long beforeId
+    ) {
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            return ResponseEntity.badRequest().build();
+        }
+        OrderFilter filter = filter(status, customerName, createdFrom, createdTo);
+
+        StreamingResponseBody body = out -> orderService.export(filter, beforeId, batch -> {
+            try {
+                for (OrderSummary order : batch) {
+                    out.write(objectMapper.writeValueAsBytes(order));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 
     @Operation(
         summary = "Crear nueva orden",
-        description = "Crea una nueva orden y publica un evento a la cola SQS para notificacion"
+        description = "Crea una nueva orden y guarda, en la misma transaccion, el evento para la cola SQS. " +
+            "El evento se publica en segundo plano, asi que SQS no agrega latencia ni puede perderlo. " +
+            "Con el header Idempotency-Key, repetir la peticion devuelve la orden original (con " +
+            "Idempotent-Replayed: true) sin crear otra orden ni publicar otro evento."
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Orden creada exitosamente",
+            description = "Orden creada exitosamente, o la orden original si la Idempotency-Key ya se uso",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "Datos de orden invalidos",
+            description = "Datos de orden o Idempotency-Key invalidos",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "La Idempotency-Key ya se uso con datos de orden distintos",
             content = @Content
         )
     })
     @PostMapping
-    public Order create(
+    public ResponseEntity<Order> create(
+        @Parameter(description = "Clave unica por intento de compra; los reintentos deben reusarla", example = "3f1c2a9e-7b4d-4c1a-9e2f-8a6b5d4c3e21")
+        @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
         @Parameter(description = "Datos de la orden a crear", required = true)
         @RequestBody Order order
     ) {
-        // Guardar la orden en la base de datos
-        Order savedOrder = repository.save(order);
-        
+        OrderService.CreateResult result;
+        try {
+            // Guardar la orden y su evento (outbox); el relay lo publica a SQS
+            result = orderService.create(order, idempotencyKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        Order savedOrder = result.order();
+
+        if (result.replayed()) {
+            log.info("Orden repetida por Idempotency-Key: id={}, key={}", savedOrder.getId(), idempotencyKey);
+            return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+                .body(savedOrder);
+        }
         log.info("Orden creada: id={}, customerName={}, status={}", 
                  savedOrder.getId(), savedOrder.getCustomerName(), savedOrder.getStatus());
         
-        // Publicar evento a SQS (asincrono, no bloquea la respuesta)
+        return ResponseEntity.ok(savedOrder);
+    }
+    
+    @Operation(
+        summary = "Crear ordenes de forma masiva",
+        description = "Crea miles de ordenes en una sola peticion, desde un arreglo JSON o NDJSON (una orden por linea). " +
+            "Las ordenes validas se insertan por lotes con un solo INSERT por lote, y sus eventos se guardan en el " +
+            "outbox y se publican en lotes de 10 mensajes SQS. Retorna el resultado de cada orden. El maximo por " +
+            "peticion es app.orders.bulk.max-items; en NDJSON el resto no se lee y la respuesta indica truncated."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Carga procesada (puede incluir ordenes rechazadas o fallidas)",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkOrderResult.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Arreglo JSON invalido o con mas ordenes que el maximo permitido",
+            content = @Content
+        )
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkOrderResult> createBulk(
+        @Parameter(description = "Tipo de contenido: application/json o application/x-ndjson", required = true)
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) throws IOException {
         try {
-            eventPublisher.publishOrderCreated(savedOrder);
-        } catch (Exception e) {
-            log.warn("No se pudo publicar evento SQS para orderId={}: {}", 
-                     savedOrder.getId(), e.getMessage());
-            // No fallamos la creacion de la orden si SQS no esta disponible
+            BulkOrderResult result = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? bulkOrderService.importNdjson(body)
+                : bulkOrderService.importJsonArray(body);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        return savedOrder;
     }
-    
+
     @Operation(
         summary = "Obtener orden por ID",
         description = "Busca y retorna una orden especifica por su identificador"
@@ -157,4 +346,14 @@ public class OrderController {
             })
             .orElse(ResponseEntity.notFound().build());
     }
+
+    private static OrderFilter filter(String status, String customerName,
+                                      LocalDateTime createdFrom, LocalDateTime createdTo) {
+        OrderFilter filter = new OrderFilter();
+        filter.setStatus(status);
+        filter.setCustomerName(customerName);
+        filter.setCreatedFrom(createdFrom);
+        filter.setCreatedTo(createdTo);
+        return filter;
+    }
 }
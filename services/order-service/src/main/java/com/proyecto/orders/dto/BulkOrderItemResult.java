@@ -0,0 +1,32 @@
+package com.proyecto.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una orden dentro de una carga masiva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de una orden de la carga masiva")
+public class BulkOrderItemResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    @Schema(description = "Posicion de la orden en la entrada (0 = primera; en NDJSON no cuentan las lineas vacias)", example = "0")
+    private int index;
+
+    @Schema(description = "CREATED, REJECTED (datos invalidos) o FAILED (error al guardar el lote)", example = "CREATED")
+    private String result;
+
+    @Schema(description = "ID asignado a la orden; null si no se creo", example = "1532")
+    private Long id;
+
+    @Schema(description = "Motivo si la orden no se creo", example = "customerName es obligatorio")
+    private String error;
+}
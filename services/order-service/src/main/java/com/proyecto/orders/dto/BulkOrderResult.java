@@ -0,0 +1,33 @@
+package com.proyecto.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(description = "Resultado de una carga masiva de ordenes")
+public class BulkOrderResult {
+
+    @Schema(description = "Ordenes leidas de la entrada", example = "5000")
+    private int received;
+
+    @Schema(description = "Ordenes creadas", example = "4990")
+    private int created;
+
+    @Schema(description = "Ordenes rechazadas por datos invalidos", example = "10")
+    private int rejected;
+
+    @Schema(description = "Ordenes validas que no se pudieron guardar", example = "0")
+    private int failed;
+
+    @Schema(description = "true si la entrada NDJSON superaba el maximo de ordenes por peticion y el resto no se leyo", example = "false")
+    private boolean truncated;
+
+    @Schema(description = "Duracion total en milisegundos", example = "850")
+    private long durationMs;
+
+    @Schema(description = "Resultado de cada orden, en el orden de la entrada")
+    private List<BulkOrderItemResult> items = new ArrayList<>();
+}
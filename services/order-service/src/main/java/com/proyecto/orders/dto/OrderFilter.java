@@ -0,0 +1,24 @@
+package com.proyecto.orders.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros opcionales para listar y exportar ordenes. Los que quedan en null no se aplican.
+ */
+@Data
+public class OrderFilter {
+
+    /** Estado exacto, p. ej. CREATED o NOTIFIED. */
+    private String status;
+
+    /** Nombre exacto del cliente. */
+    private String customerName;
+
+    /** Creadas desde este instante (inclusive). */
+    private LocalDateTime createdFrom;
+
+    /** Creadas antes de este instante (exclusive). */
+    private LocalDateTime createdTo;
+}
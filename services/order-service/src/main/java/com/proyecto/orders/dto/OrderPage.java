@@ -0,0 +1,27 @@
+package com.proyecto.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pagina de ordenes obtenida por keyset (cursor).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina de ordenes paginada por cursor, de la mas nueva a la mas vieja")
+public class OrderPage {
+
+    @Schema(description = "Ordenes de la pagina")
+    private List<OrderSummary> items;
+
+    @Schema(description = "Cursor para pedir la siguiente pagina; null si es la ultima", example = "MTIzNDU")
+    private String nextCursor;
+
+    @Schema(description = "Tamano de pagina aplicado", example = "20")
+    private int size;
+}
@@ -0,0 +1,34 @@
+package com.proyecto.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Orden leida con una proyeccion (SELECT new ...), sin pasar por el contexto
+ * de persistencia. Serializa igual que {@link com.proyecto.orders.model.Order}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Orden de compra (solo lectura)")
+public class OrderSummary {
+
+    @Schema(description = "ID unico de la orden", example = "1")
+    private Long id;
+
+    @Schema(description = "Nombre del cliente", example = "Juan Perez")
+    private String customerName;
+
+    @Schema(description = "Estado actual de la orden", example = "CREATED")
+    private String status;
+
+    @Schema(description = "Total de la orden en dolares", example = "150.50")
+    private Double total;
+
+    @Schema(description = "Fecha y hora de creacion de la orden", example = "2024-01-15T10:30:00")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.proyecto.orders.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key ya usada para crear una orden.
+ *
+ * La clave primaria es lo que garantiza que dos peticiones con la misma clave,
+ * aunque lleguen a la vez a instancias distintas, creen una sola orden. La
+ * fila se inserta en la misma transaccion que la orden y vence a los
+ * {@code app.orders.idempotency.ttl}.
+ */
+@Entity
+@Table(name = "order_idempotency", indexes = {
+    @Index(name = "idx_order_idempotency_expires_at", columnList = "expiresAt")
+})
+@Data
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 255)
+    private String idempotencyKey;
+
+    /** SHA-256 del cuerpo de la peticion, para detectar una clave reusada con otros datos. */
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    private Long orderId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -5,8 +5,13 @@ import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDateTime;
 
+// El listado se recorre por id descendente; cada filtro tiene un indice que termina en id
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_status_id", columnList = "status, id"),
+    @Index(name = "idx_orders_customer_name_id", columnList = "customerName, id"),
+    @Index(name = "idx_orders_created_at_id", columnList = "createdAt, id")
+})
 @Data
 @Schema(description = "Entidad que representa una orden de compra")
 public class Order {
@@ -0,0 +1,66 @@
+package com.proyecto.orders.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento pendiente de publicar en SQS (transactional outbox).
+ *
+ * Se inserta en la misma transaccion que la orden, asi que un evento existe
+ * si y solo si la orden se guardo. {@link com.proyecto.orders.service.OutboxRelay}
+ * lo publica y borra la fila; si falla {@code maxAttempts} veces queda en
+ * estado DEAD para revisarlo a mano.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_order_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_order_outbox_aggregate_id", columnList = "aggregateId, id")
+})
+@Data
+public class OutboxEvent {
+
+    public static final String PENDING = "PENDING";
+    public static final String DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** ID de la orden: los eventos de una misma orden se publican en orden. */
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(Long aggregateId, String eventType, String payload) {
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.status = PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
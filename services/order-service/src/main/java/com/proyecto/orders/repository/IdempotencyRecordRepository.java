@@ -0,0 +1,42 @@
+package com.proyecto.orders.repository;
+
+import com.proyecto.orders.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserva la clave para esta transaccion. Devuelve 1 si la clave era nueva
+     * (o estaba vencida) y 0 si ya la uso otra peticion.
+     *
+     * Si otra transaccion inserto la misma clave y todavia no termino,
+     * PostgreSQL espera a que confirme o deshaga antes de decidir, asi que dos
+     * duplicados concurrentes nunca reservan la clave a la vez.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_idempotency (idempotency_key, request_hash, order_id, created_at, expires_at)
+        VALUES (:key, :requestHash, NULL, :now, :expiresAt)
+        ON CONFLICT (idempotency_key) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash, order_id = NULL,
+                created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+            WHERE order_idempotency.expires_at <= :now
+        """, nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId WHERE r.idempotencyKey = :key")
+    int complete(@Param("key") String key, @Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
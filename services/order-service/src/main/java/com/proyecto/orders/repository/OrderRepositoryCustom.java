@@ -0,0 +1,17 @@
+package com.proyecto.orders.repository;
+
+import com.proyecto.orders.dto.OrderFilter;
+import com.proyecto.orders.dto.OrderSummary;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Ordenes que cumplen el filtro, de la mas nueva a la mas vieja (id descendente).
+     *
+     * @param beforeId solo ordenes con id menor (keyset), o null para empezar por la mas nueva
+     * @param limit    cantidad maxima de filas
+     */
+    List<OrderSummary> findSummaries(OrderFilter filter, Long beforeId, int limit);
+}
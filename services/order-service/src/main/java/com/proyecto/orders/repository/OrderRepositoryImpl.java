@@ -0,0 +1,62 @@
+package com.proyecto.orders.repository;
+
+import com.proyecto.orders.dto.OrderFilter;
+import com.proyecto.orders.dto.OrderSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de lectura de ordenes con proyeccion a {@link OrderSummary}.
+ *
+ * El JPQL se arma solo con los filtros presentes, en lugar de
+ * "(:x IS NULL OR ...)", para que PostgreSQL pueda usar los indices de
+ * {@code orders} con cualquier combinacion de filtros.
+ */
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> findSummaries(OrderFilter filter, Long beforeId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (filter.getStatus() != null) {
+            conditions.add("o.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getCustomerName() != null) {
+            conditions.add("o.customerName = :customerName");
+            params.put("customerName", filter.getCustomerName());
+        }
+        if (filter.getCreatedFrom() != null) {
+            conditions.add("o.createdAt >= :createdFrom");
+            params.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            conditions.add("o.createdAt < :createdTo");
+            params.put("createdTo", filter.getCreatedTo());
+        }
+        if (beforeId != null) {
+            conditions.add("o.id < :beforeId");
+            params.put("beforeId", beforeId);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT new com.proyecto.orders.dto.OrderSummary("
+            + "o.id, o.customerName, o.status, o.total, o.createdAt) FROM Order o");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY o.id DESC");
+
+        TypedQuery<OrderSummary> query = entityManager.createQuery(jpql.toString(), OrderSummary.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.proyecto.orders.repository;
+
+import com.proyecto.orders.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Toma y bloquea los eventos listos para publicar, en orden de insercion.
+     *
+     * Solo devuelve el evento pendiente mas antiguo de cada orden, para que un
+     * reintento no quede detras de un evento posterior de la misma orden. Con
+     * SKIP LOCKED varias instancias pueden drenar la tabla sin pisarse.
+     */
+    @Query(value = """
+        SELECT o.* FROM order_outbox o
+        WHERE o.status = 'PENDING' AND o.next_attempt_at <= :now
+          AND NOT EXISTS (
+              SELECT 1 FROM order_outbox p
+              WHERE p.aggregate_id = o.aggregate_id AND p.status = 'PENDING' AND p.id < o.id)
+        ORDER BY o.id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(String status);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxEvent o WHERE o.status = 'PENDING'")
+    LocalDateTime oldestPendingCreatedAt();
+}
@@ -0,0 +1,257 @@
+package com.proyecto.orders.service;
+
+import com.proyecto.orders.model.OutboxEvent;
+import com.proyecto.orders.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publicacion asincrona de eventos en memoria (app.events.publish-mode=async).
+ *
+ * - {@link OrderService} encola el evento despues del commit y la peticion
+ *   responde sin esperar a SQS.
+ * - Los workers toman lo que haya en la cola (hasta 10 eventos) y lo envian en
+ *   un solo SendMessageBatch, asi que con carga los envios se agrupan solos.
+ * - Cola llena, segun app.events.async.overflow:
+ *   block espera hasta block-timeout y despues guarda en el outbox;
+ *   drop descarta el evento y lo cuenta en orders.events.async.dropped;
+ *   spill lo guarda en el outbox, que lo publica {@link OutboxRelay}.
+ * - Los envios que fallan tambien pasan al outbox para reintentarse.
+ * - Al apagar se deja de aceptar eventos, se espera a que los workers vacien
+ *   la cola (hasta shutdown-timeout) y lo que quede se guarda en el outbox.
+ *
+ * A diferencia del outbox, un evento todavia en la cola se pierde si el
+ * proceso muere sin apagarse ordenadamente.
+ */
+@Component
+public class AsyncOrderEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncOrderEventDispatcher.class);
+
+    enum Overflow { BLOCK, DROP, SPILL }
+
+    private record PendingEvent(Long orderId, String payload, long enqueuedAt) {}
+
+    private final OrderEventPublisher publisher;
+    private final OutboxEventRepository outboxRepository;
+    private final TransactionTemplate spillTransaction;
+    private final BlockingQueue<PendingEvent> queue;
+    private final Overflow overflow;
+    private final Duration blockTimeout;
+    private final Duration shutdownTimeout;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter spilledOverflow;
+    private final Counter spilledFailure;
+    private final Counter spilledShutdown;
+    private final Timer latency;
+
+    private volatile boolean accepting = true;
+
+    public AsyncOrderEventDispatcher(OrderEventPublisher publisher,
+                                     OutboxEventRepository outboxRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.events.publish-mode:outbox}") String publishMode,
+                                     @Value("${app.events.async.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${app.events.async.workers:2}") int workerCount,
+                                     @Value("${app.events.async.overflow:spill}") String overflow,
+                                     @Value("${app.events.async.block-timeout:100ms}") Duration blockTimeout,
+                                     @Value("${app.events.async.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.publisher = publisher;
+        this.outboxRepository = outboxRepository;
+        // submit() corre en afterCommit, con la transaccion de la orden ya terminada
+        // pero todavia ligada al hilo: el spill necesita una transaccion propia
+        this.spillTransaction = new TransactionTemplate(transactionManager);
+        this.spillTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflow = Overflow.valueOf(overflow.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeout = blockTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+
+        this.published = Counter.builder("orders.events.async.published")
+            .description("Eventos publicados en SQS desde la cola en memoria")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("orders.events.async.dropped")
+            .description("Eventos descartados porque la cola estaba llena (overflow=drop)")
+            .register(meterRegistry);
+        this.spilledOverflow = spilled(meterRegistry, "overflow");
+        this.spilledFailure = spilled(meterRegistry, "failure");
+        this.spilledShutdown = spilled(meterRegistry, "shutdown");
+        this.latency = Timer.builder("orders.events.async.latency")
+            .description("Tiempo desde que se encola el evento hasta que SQS lo confirma")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("orders.events.async.queue", queue, BlockingQueue::size)
+            .description("Eventos en la cola en memoria")
+            .register(meterRegistry);
+
+        if ("async".equalsIgnoreCase(publishMode)) {
+            for (int i = 1; i <= workerCount; i++) {
+                Thread worker = new Thread(this::drain, "order-events-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+    }
+
+    private static Counter spilled(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("orders.events.async.spilled")
+            .tag("reason", reason)
+            .description("Eventos guardados en el outbox en lugar de publicarse desde la cola")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Encola un evento ya confirmado en la base de datos. Nunca lanza excepcion
+     * por SQS; solo puede bloquear hasta block-timeout con overflow=block.
+     */
+    public void submit(Long orderId, String payload) {
+        PendingEvent event = new PendingEvent(orderId, payload, System.nanoTime());
+        if (accepting && queue.offer(event)) {
+            recheckShutdown(event);
+            return;
+        }
+        if (!accepting) {
+            spill(List.of(event), spilledShutdown);
+            return;
+        }
+        switch (overflow) {
+            case DROP -> {
+                dropped.increment();
+                log.warn("Cola de eventos llena, se descarta el evento de la orden {}", orderId);
+            }
+            case BLOCK -> {
+                try {
+                    if (queue.offer(event, blockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                        recheckShutdown(event);
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                spill(List.of(event), spilledOverflow);
+            }
+            case SPILL -> spill(List.of(event), spilledOverflow);
+        }
+    }
+
+    /**
+     * El apagado pudo empezar entre la verificacion de accepting y el offer, y
+     * vaciar la cola antes de que el evento entrara. Si sigue en la cola se saca
+     * y se guarda en el outbox; si ya no esta, lo tomo un worker o el vaciado final.
+     */
+    private void recheckShutdown(PendingEvent event) {
+        if (!accepting && queue.remove(event)) {
+            spill(List.of(event), spilledShutdown);
+        }
+    }
+
+    private void drain() {
+        List<PendingEvent> batch = new ArrayList<>(OrderEventPublisher.SQS_MAX_BATCH);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, OrderEventPublisher.SQS_MAX_BATCH - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Error publicando eventos desde la cola: {}", e.getMessage());
+                spill(batch, spilledFailure);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingEvent> batch) {
+        // La clave es la posicion en el lote: una orden podria repetirse
+        Map<Long, String> payloads = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            payloads.put((long) i, batch.get(i).payload());
+        }
+        Map<Long, String> failed = publisher.publish(payloads);
+        long now = System.nanoTime();
+        List<PendingEvent> retry = new ArrayList<>(failed.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (failed.containsKey((long) i)) {
+                retry.add(batch.get(i));
+            } else {
+                latency.record(now - batch.get(i).enqueuedAt(), TimeUnit.NANOSECONDS);
+                published.increment();
+            }
+        }
+        if (!retry.isEmpty()) {
+            spill(retry, spilledFailure);
+        }
+    }
+
+    /**
+     * Guarda los eventos en el outbox para que los publique el relay, en una
+     * transaccion nueva confirmada antes de volver.
+     */
+    private void spill(List<PendingEvent> events, Counter reason) {
+        try {
+            spillTransaction.executeWithoutResult(status -> outboxRepository.saveAll(events.stream()
+                .map(event -> new OutboxEvent(event.orderId(), OrderEventPublisher.ORDER_CREATED, event.payload()))
+                .toList()));
+            reason.increment(events.size());
+        } catch (Exception e) {
+            log.error("No se pudieron guardar {} eventos en el outbox, se pierden: {}", events.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deja de aceptar eventos, espera a que los workers vacien la cola y
+     * guarda en el outbox lo que no alcanzo a salir.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Thread worker : workers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                worker.join(Math.max(remaining, 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.forEach(Thread::interrupt);
+        List<PendingEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining, spilledShutdown);
+            log.info("{} eventos pendientes guardados en el outbox al apagar", remaining.size());
+        }
+    }
+}
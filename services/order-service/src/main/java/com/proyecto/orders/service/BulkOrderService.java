@@ -0,0 +1,331 @@
+package com.proyecto.orders.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.orders.dto.BulkOrderItemResult;
+import com.proyecto.orders.dto.BulkOrderResult;
+import com.proyecto.orders.model.Order;
+import com.proyecto.orders.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta masiva de ordenes desde un arreglo JSON o NDJSON.
+ *
+ * Las ordenes validas se guardan por lotes de app.orders.bulk.batch-size, cada
+ * lote en su propia transaccion y con tres sentencias en total:
+ * - un nextval por lote sobre la secuencia de la columna identity de orders,
+ *   para conocer los IDs antes de insertar;
+ * - un INSERT ... SELECT FROM unnest(...) con todas las ordenes;
+ * - otro igual con sus eventos OrderCreated en el outbox, que
+ *   {@link OutboxRelay} publica con SendMessageBatch. En modo async los eventos
+ *   se encolan despues del commit ({@link AsyncOrderEventDispatcher}).
+ *
+ * La respuesta informa el resultado de cada orden. Si un lote falla, sus
+ * ordenes quedan en FAILED y los demas lotes siguen.
+ */
+@Service
+public class BulkOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOrderService.class);
+
+    private static final String RESERVE_IDS_SQL =
+        "select nextval(pg_get_serial_sequence('orders', 'id')) from generate_series(1, ?)";
+
+    private static final String INSERT_ORDERS_SQL = """
+        insert into orders (id, customer_name, total, status, created_at)
+        select t.id, t.customer_name, t.total, t.status, ?
+        from unnest(?::int8[], ?::varchar[], ?::float8[], ?::varchar[]) as t(id, customer_name, total, status)
+        """;
+
+    private static final String INSERT_OUTBOX_SQL = """
+        insert into order_outbox (aggregate_id, event_type, payload, status, attempts, created_at, next_attempt_at)
+        select t.aggregate_id, ?, t.payload, ?, 0, ?, ?
+        from unnest(?::int8[], ?::text[]) as t(aggregate_id, payload)
+        """;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderEventPublisher eventPublisher;
+    private final AsyncOrderEventDispatcher asyncDispatcher;
+    private final ObjectMapper objectMapper;
+    private final boolean asyncMode;
+    private final int batchSize;
+    private final int maxItems;
+    private final Counter created;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer duration;
+
+    public BulkOrderService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            OrderEventPublisher eventPublisher,
+                            AsyncOrderEventDispatcher asyncDispatcher,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.events.publish-mode:outbox}") String publishMode,
+                            @Value("${app.orders.bulk.batch-size:1000}") int batchSize,
+                            @Value("${app.orders.bulk.max-items:10000}") int maxItems) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.asyncDispatcher = asyncDispatcher;
+        this.objectMapper = objectMapper;
+        this.asyncMode = "async".equalsIgnoreCase(publishMode);
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+
+        this.created = items(meterRegistry, "created");
+        this.rejected = items(meterRegistry, "rejected");
+        this.failed = items(meterRegistry, "failed");
+        this.duration = Timer.builder("orders.bulk.duration")
+            .description("Duracion de cada carga masiva de ordenes")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    private static Counter items(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("orders.bulk.items")
+            .tag("result", result)
+            .description("Ordenes procesadas por la carga masiva")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Crea las ordenes de un arreglo JSON. El arreglo se lee completo antes de
+     * guardar nada, asi que un JSON mal formado no deja una carga a medias.
+     *
+     * @throws IllegalArgumentException si no es un arreglo JSON valido o supera app.orders.bulk.max-items
+     */
+    public BulkOrderResult importJsonArray(InputStream input) throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un arreglo JSON de ordenes");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (nodes.size() >= maxItems) {
+                    throw new IllegalArgumentException("La carga supera las " + maxItems + " ordenes por peticion");
+                }
+                nodes.add(parser.readValueAsTree());
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalido: " + e.getOriginalMessage());
+        }
+
+        BulkRun run = new BulkRun();
+        for (JsonNode node : nodes) {
+            try {
+                run.add(objectMapper.treeToValue(node, Order.class));
+            } catch (JsonProcessingException e) {
+                run.addInvalid("orden invalida: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Crea las ordenes de un NDJSON (una orden por linea) leyendo en streaming.
+     * Una linea invalida solo rechaza esa orden. Pasadas app.orders.bulk.max-items
+     * ordenes se deja de leer y el resultado queda con truncated = true.
+     */
+    public BulkOrderResult importNdjson(InputStream input) throws IOException {
+        BulkRun run = new BulkRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (run.result.getReceived() >= maxItems) {
+                    run.result.setTruncated(true);
+                    break;
+                }
+                try {
+                    run.add(objectMapper.readValue(line, Order.class));
+                } catch (JsonProcessingException e) {
+                    run.addInvalid("JSON invalido");
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Estado de una carga en curso: lote pendiente y resultados.
+     */
+    private class BulkRun {
+
+        private final BulkOrderResult result = new BulkOrderResult();
+        private final long startedAt = System.nanoTime();
+        private final List<Order> batch = new ArrayList<>();
+        private final List<BulkOrderItemResult> batchItems = new ArrayList<>();
+
+        void add(Order order) {
+            BulkOrderItemResult item = next();
+            String error = validate(order);
+            if (error != null) {
+                reject(item, error);
+                return;
+            }
+            order.setId(null);
+            order.setCustomerName(order.getCustomerName().trim());
+            if (order.getStatus() == null || order.getStatus().isBlank()) {
+                order.setStatus("CREATED");
+            }
+            batch.add(order);
+            batchItems.add(item);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void addInvalid(String reason) {
+            reject(next(), reason);
+        }
+
+        private BulkOrderItemResult next() {
+            BulkOrderItemResult item = new BulkOrderItemResult(result.getReceived(), null, null, null);
+            result.setReceived(result.getReceived() + 1);
+            result.getItems().add(item);
+            return item;
+        }
+
+        private void reject(BulkOrderItemResult item, String reason) {
+            item.setResult(BulkOrderItemResult.REJECTED);
+            item.setError(reason);
+            result.setRejected(result.getRejected() + 1);
+            rejected.increment();
+        }
+
+        BulkOrderResult finish() {
+            flush();
+            long elapsed = System.nanoTime() - startedAt;
+            duration.record(elapsed, TimeUnit.NANOSECONDS);
+            result.setDurationMs(elapsed / 1_000_000);
+            log.info("Carga masiva de ordenes: {} leidas, {} creadas, {} rechazadas, {} fallidas en {} ms",
+                result.getReceived(), result.getCreated(), result.getRejected(), result.getFailed(),
+                result.getDurationMs());
+            return result;
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(batch));
+                for (int i = 0; i < batch.size(); i++) {
+                    batchItems.get(i).setResult(BulkOrderItemResult.CREATED);
+                    batchItems.get(i).setId(batch.get(i).getId());
+                }
+                result.setCreated(result.getCreated() + batch.size());
+                created.increment(batch.size());
+            } catch (DataAccessException e) {
+                log.warn("No se pudo guardar un lote de {} ordenes: {}", batch.size(), e.getMessage());
+                for (BulkOrderItemResult item : batchItems) {
+                    item.setResult(BulkOrderItemResult.FAILED);
+                    item.setError("error al guardar el lote");
+                }
+                result.setFailed(result.getFailed() + batch.size());
+                failed.increment(batch.size());
+            } finally {
+                batch.clear();
+                batchItems.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserta un lote de ordenes y sus eventos dentro de la transaccion en curso.
+     * Asigna a cada orden su id y fecha de creacion.
+     */
+    private void insert(List<Order> orders) {
+        List<Long> ids = jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, orders.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(ids.get(i));
+            orders.get(i).setCreatedAt(now);
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ORDERS_SQL);
+            statement.setObject(1, now);
+            statement.setArray(2, connection.createArrayOf("int8", ids.toArray()));
+            statement.setArray(3, connection.createArrayOf("varchar", orders.stream().map(Order::getCustomerName).toArray()));
+            statement.setArray(4, connection.createArrayOf("float8", orders.stream().map(Order::getTotal).toArray()));
+            statement.setArray(5, connection.createArrayOf("varchar", orders.stream().map(Order::getStatus).toArray()));
+            return statement;
+        });
+
+        List<String> payloads = orders.stream().map(eventPublisher::toPayload).toList();
+        if (asyncMode) {
+            // Solo se encolan si el lote llego a confirmarse
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (int i = 0; i < ids.size(); i++) {
+                        asyncDispatcher.submit(ids.get(i), payloads.get(i));
+                    }
+                }
+            });
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_OUTBOX_SQL);
+            statement.setString(1, OrderEventPublisher.ORDER_CREATED);
+            statement.setString(2, OutboxEvent.PENDING);
+            statement.setObject(3, now);
+            statement.setObject(4, now);
+            statement.setArray(5, connection.createArrayOf("int8", ids.toArray()));
+            statement.setArray(6, connection.createArrayOf("text", payloads.toArray()));
+            return statement;
+        });
+    }
+
+    private static String validate(Order order) {
+        if (order == null) {
+            return "la orden no puede ser null";
+        }
+        if (order.getCustomerName() == null || order.getCustomerName().isBlank()) {
+            return "customerName es obligatorio";
+        }
+        if (order.getCustomerName().trim().length() > MAX_TEXT_LENGTH) {
+            return "customerName supera los " + MAX_TEXT_LENGTH + " caracteres";
+        }
+        if (order.getTotal() == null || order.getTotal() < 0) {
+            return "total debe ser mayor o igual a cero";
+        }
+        if (order.getStatus() != null && order.getStatus().length() > MAX_TEXT_LENGTH) {
+            return "status supera los " + MAX_TEXT_LENGTH + " caracteres";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.proyecto.orders.service;
+
+/**
+ * La Idempotency-Key ya se uso con una peticion de contenido distinto.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("La Idempotency-Key " + idempotencyKey + " ya se uso con otra orden");
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
@@ -0,0 +1,129 @@
+package com.proyecto.orders.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.proyecto.orders.model.IdempotencyRecord;
+import com.proyecto.orders.model.Order;
+import com.proyecto.orders.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Registro de Idempotency-Key de las altas de ordenes.
+ *
+ * - L1: cache Caffeine por instancia, acotado en tamano y con el mismo TTL,
+ *   para responder los reintentos sin ir a la base de datos.
+ * - L2: tabla order_idempotency, cuya clave primaria resuelve los duplicados
+ *   que llegan a la vez o a otra instancia.
+ * Las filas vencidas se borran periodicamente.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    /** Orden ya creada con una clave, junto con el hash de la peticion original. */
+    public record Entry(String requestHash, Order order) {}
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Cache<String, Entry> cache;
+    private final Counter replayedFromCache;
+    private final Counter replayedFromDatabase;
+    private final Counter reused;
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.orders.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${app.orders.idempotency.cache-size:10000}") long cacheSize) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(ttl)
+            .build();
+
+        this.replayedFromCache = replayed(meterRegistry, "cache");
+        this.replayedFromDatabase = replayed(meterRegistry, "database");
+        this.reused = Counter.builder("orders.idempotency.reused")
+            .description("Idempotency-Key reusadas con una peticion distinta (422)")
+            .register(meterRegistry);
+    }
+
+    private static Counter replayed(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("orders.idempotency.replayed")
+            .tag("source", source)
+            .description("Peticiones repetidas respondidas con la orden original")
+            .register(meterRegistry);
+    }
+
+    public Optional<Entry> cached(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            replayedFromCache.increment();
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    /**
+     * Reserva la clave dentro de la transaccion en curso.
+     *
+     * @return true si la clave es nueva; false si ya la uso una peticion confirmada
+     */
+    public boolean claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        return repository.claim(key, requestHash, now, now.plus(ttl)) > 0;
+    }
+
+    /**
+     * Asocia la orden creada a la clave reservada con {@link #claim}.
+     */
+    public void complete(String key, Long orderId) {
+        repository.complete(key, orderId);
+    }
+
+    /**
+     * Registro confirmado de una clave que {@link #claim} no pudo reservar.
+     */
+    public IdempotencyRecord find(String key) {
+        IdempotencyRecord record = repository.findById(key)
+            .orElseThrow(() -> new IllegalStateException("Idempotency-Key sin registro: " + key));
+        replayedFromDatabase.increment();
+        return record;
+    }
+
+    /**
+     * Guarda en el L1 una clave ya confirmada en la base de datos.
+     */
+    public void remember(String key, String requestHash, Order order) {
+        cache.put(key, new Entry(requestHash, order));
+    }
+
+    public void reused(String key) {
+        reused.increment();
+        log.warn("Idempotency-Key reusada con otra peticion: {}", key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval:10m}")
+    @Transactional
+    public void purgeExpired() {
+        try {
+            int deleted = repository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                log.info("{} Idempotency-Key vencidas eliminadas", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron eliminar las Idempotency-Key vencidas: {}", e.getMessage());
+        }
+    }
+}
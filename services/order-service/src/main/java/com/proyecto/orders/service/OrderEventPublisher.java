@@ -5,20 +5,43 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.proyecto.orders.event.OrderCreatedEvent;
 import com.proyecto.orders.model.Order;
+import com.proyecto.orders.model.OutboxEvent;
+import io.awspring.cloud.sqs.operations.SendBatchOperationFailedException;
+import io.awspring.cloud.sqs.operations.SendResult;
 import io.awspring.cloud.sqs.operations.SqsTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Servicio para publicar eventos de ordenes a SQS.
+ *
+ * Los eventos no se envian desde la peticion: se guardan en el outbox junto
+ * con la orden ({@link #toPayload}) y {@link OutboxRelay} los publica en lotes,
+ * o los encola en memoria {@link AsyncOrderEventDispatcher} (app.events.publish-mode).
  */
 @Service
 public class OrderEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventPublisher.class);
 
+    public static final String ORDER_CREATED = "OrderCreated";
+
+    /** Maximo de mensajes por SendMessageBatch que acepta SQS. */
+    static final int SQS_MAX_BATCH = 10;
+
+    /** Header (atributo del mensaje SQS) con la clave del evento dentro del lote. */
+    private static final String EVENT_KEY_HEADER = "event-key";
+
     private final SqsTemplate sqsTemplate;
     private final ObjectMapper objectMapper;
     private final String queueName;
@@ -32,35 +55,70 @@ public class OrderEventPublisher {
     }
 
     /**
-     * Publica un evento OrderCreated a la cola SQS.
-     * 
+     * Serializa el evento OrderCreated de una orden ya guardada.
+     *
      * @param order La orden creada
      */
-    public void publishOrderCreated(Order order) {
+    public String toPayload(Order order) {
+        OrderCreatedEvent event = OrderCreatedEvent.fromOrder(
+            order.getId(),
+            order.getCustomerName(),
+            order.getTotal(),
+            order.getStatus(),
+            order.getCreatedAt()
+        );
         try {
-            OrderCreatedEvent event = OrderCreatedEvent.fromOrder(
-                order.getId(),
-                order.getCustomerName(),
-                order.getTotal(),
-                order.getStatus(),
-                order.getCreatedAt()
-            );
-
-            String messageBody = objectMapper.writeValueAsString(event);
-            
-            sqsTemplate.send(queueName, messageBody);
-            
-            log.info("Evento OrderCreated publicado exitosamente para orderId={}", order.getId());
-            
+            return objectMapper.writeValueAsString(event);
         } catch (JsonProcessingException e) {
-            log.error("Error serializando evento OrderCreated para orderId={}: {}", 
-                      order.getId(), e.getMessage());
-            throw new RuntimeException("Error publicando evento a SQS", e);
-        } catch (Exception e) {
-            log.error("Error publicando a SQS para orderId={}: {}", 
-                      order.getId(), e.getMessage());
-            // No lanzamos excepcion para no afectar la creacion de la orden
-            // En produccion podriamos usar un mecanismo de retry o dead letter queue
+            throw new IllegalStateException("Error serializando evento OrderCreated para orderId=" + order.getId(), e);
+        }
+    }
+
+    /**
+     * Publica los eventos del outbox con SendMessageBatch, de a {@value #SQS_MAX_BATCH} por llamada.
+     *
+     * @return ID de cada evento que no se pudo publicar y el motivo; vacio si se publicaron todos
+     */
+    public Map<Long, String> publishBatch(List<OutboxEvent> events) {
+        Map<Long, String> payloads = new LinkedHashMap<>();
+        events.forEach(event -> payloads.put(event.getId(), event.getPayload()));
+        return publish(payloads);
+    }
+
+    /**
+     * Publica mensajes con SendMessageBatch, de a {@value #SQS_MAX_BATCH} por llamada.
+     *
+     * @param payloads mensajes por una clave propia del llamador (p. ej. el ID del outbox)
+     * @return clave de cada mensaje que no se pudo publicar y el motivo; vacio si se publicaron todos
+     */
+    public Map<Long, String> publish(Map<Long, String> payloads) {
+        Map<Long, String> failed = new HashMap<>();
+        List<Map.Entry<Long, String>> entries = new ArrayList<>(payloads.entrySet());
+        for (int from = 0; from < entries.size(); from += SQS_MAX_BATCH) {
+            List<Map.Entry<Long, String>> chunk = entries.subList(from, Math.min(from + SQS_MAX_BATCH, entries.size()));
+            List<Message<String>> messages = new ArrayList<>(chunk.size());
+            for (Map.Entry<Long, String> entry : chunk) {
+                messages.add(MessageBuilder.withPayload(entry.getValue())
+                    .setHeader(EVENT_KEY_HEADER, String.valueOf(entry.getKey()))
+                    .build());
+            }
+            try {
+                SendResult.Batch<String> result;
+                try {
+                    result = sqsTemplate.sendMany(queueName, messages);
+                } catch (SendBatchOperationFailedException e) {
+                    // Fallo parcial: el resultado trae cuales entraron y cuales no
+                    result = e.getSendBatchResult(String.class);
+                }
+                for (SendResult.Failed<String> failure : result.failed()) {
+                    Object key = failure.message().getHeaders().get(EVENT_KEY_HEADER);
+                    failed.put(Long.valueOf(String.valueOf(key)), failure.errorMessage());
+                }
+            } catch (Exception e) {
+                log.warn("Error publicando lote de {} eventos a SQS: {}", chunk.size(), e.getMessage());
+                chunk.forEach(entry -> failed.put(entry.getKey(), String.valueOf(e.getMessage())));
+            }
         }
+        return failed;
     }
 }
@@ -0,0 +1,260 @@
+package com.proyecto.orders.service;
+
+import com.proyecto.orders.dto.OrderFilter;
+import com.proyecto.orders.dto.OrderPage;
+import com.proyecto.orders.dto.OrderSummary;
+import com.proyecto.orders.model.IdempotencyRecord;
+import com.proyecto.orders.model.Order;
+import com.proyecto.orders.model.OutboxEvent;
+import com.proyecto.orders.repository.OrderRepository;
+import com.proyecto.orders.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Alta y consulta de ordenes.
+ *
+ * Las consultas filtran por estado, cliente y rango de fechas, recorren por id
+ * descendente (keyset) y devuelven proyecciones {@link OrderSummary}.
+ *
+ * El evento OrderCreated sale segun app.events.publish-mode:
+ * - outbox (por defecto): se guarda en la misma transaccion que la orden y lo
+ *   publica {@link OutboxRelay}. No se pierde aunque la instancia se caiga.
+ * - async: se encola en memoria despues del commit
+ *   ({@link AsyncOrderEventDispatcher}), ahorrando la escritura del outbox.
+ *
+ * Con Idempotency-Key, una peticion repetida devuelve la orden creada por la
+ * primera sin insertar ni publicar nada ({@link IdempotencyStore}).
+ */
+@Service
+public class OrderService {
+
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    /**
+     * Orden creada o, si la Idempotency-Key ya se habia usado, la orden original.
+     */
+    public record CreateResult(Order order, boolean replayed) {}
+
+    private final OrderRepository repository;
+    private final OutboxEventRepository outboxRepository;
+    private final OrderEventPublisher eventPublisher;
+    private final AsyncOrderEventDispatcher asyncDispatcher;
+    private final IdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean asyncMode;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxListSize;
+    private final int exportBatchSize;
+
+    public OrderService(OrderRepository repository,
+                        OutboxEventRepository outboxRepository,
+                        OrderEventPublisher eventPublisher,
+                        AsyncOrderEventDispatcher asyncDispatcher,
+                        IdempotencyStore idempotencyStore,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.events.publish-mode:outbox}") String publishMode,
+                        @Value("${app.orders.page.default-size:20}") int defaultPageSize,
+                        @Value("${app.orders.page.max-size:100}") int maxPageSize,
+                        @Value("${app.orders.list.max-size:500}") int maxListSize,
+                        @Value("${app.orders.export.batch-size:1000}") int exportBatchSize) {
+        this.repository = repository;
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.asyncDispatcher = asyncDispatcher;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.asyncMode = "async".equalsIgnoreCase(publishMode);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxListSize = maxListSize;
+        this.exportBatchSize = exportBatchSize;
+    }
+
+    /**
+     * Guarda la orden y deja su evento OrderCreated listo para publicarse
+     * fuera de la peticion.
+     *
+     * @param idempotencyKey clave enviada por el cliente, o null para no deduplicar
+     * @throws IllegalArgumentException      si la clave esta vacia o es demasiado larga
+     * @throws IdempotencyKeyReusedException si la clave ya se uso con otros datos
+     */
+    public CreateResult create(Order order, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return new CreateResult(transactionTemplate.execute(status -> insert(order)), false);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key vacia o de mas de "
+                + MAX_IDEMPOTENCY_KEY_LENGTH + " caracteres");
+        }
+        String requestHash = requestHash(order);
+        IdempotencyStore.Entry cached = idempotencyStore.cached(idempotencyKey).orElse(null);
+        if (cached != null) {
+            return replay(idempotencyKey, requestHash, cached.requestHash(), cached.order());
+        }
+
+        CreateResult result = transactionTemplate.execute(status -> {
+            if (idempotencyStore.claim(idempotencyKey, requestHash)) {
+                Order saved = insert(order);
+                idempotencyStore.complete(idempotencyKey, saved.getId());
+                return new CreateResult(saved, false);
+            }
+            // Otra peticion con la misma clave ya confirmo su orden
+            IdempotencyRecord record = idempotencyStore.find(idempotencyKey);
+            Order original = repository.findById(record.getOrderId())
+                .orElseThrow(() -> new IllegalStateException("Orden " + record.getOrderId() + " no encontrada"));
+            return replay(idempotencyKey, requestHash, record.getRequestHash(), original);
+        });
+        idempotencyStore.remember(idempotencyKey, requestHash, result.order());
+        return result;
+    }
+
+    private CreateResult replay(String key, String requestHash, String originalHash, Order original) {
+        if (!requestHash.equals(originalHash)) {
+            idempotencyStore.reused(key);
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return new CreateResult(original, true);
+    }
+
+    private Order insert(Order order) {
+        Order saved = repository.save(order);
+        String payload = eventPublisher.toPayload(saved);
+        if (!asyncMode) {
+            outboxRepository.save(new OutboxEvent(saved.getId(), OrderEventPublisher.ORDER_CREATED, payload));
+            return saved;
+        }
+        // Solo se encola si la orden llego a confirmarse
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                asyncDispatcher.submit(saved.getId(), payload);
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * Huella de los datos que envia el cliente; el id y la fecha los completa el
+     * servidor y no cuentan.
+     */
+    private static String requestHash(Order order) {
+        String content = Objects.toString(order.getCustomerName()) + '\u0000'
+            + Objects.toString(order.getTotal()) + '\u0000'
+            + Objects.toString(order.getStatus());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Ordenes mas nuevas que cumplen el filtro, como lista simple (GET /orders).
+     * Nunca devuelve mas de app.orders.list.max-size filas.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSummary> list(OrderFilter filter, Integer limit) {
+        int max = (limit == null || limit < 1) ? maxListSize : Math.min(limit, maxListSize);
+        return repository.findSummaries(normalize(filter), null, max);
+    }
+
+    /**
+     * Obtiene una pagina de ordenes por keyset, de la mas nueva a la mas vieja.
+     *
+     * @throws IllegalArgumentException si el cursor o los filtros son invalidos
+     */
+    @Transactional(readOnly = true)
+    public OrderPage getPage(OrderFilter filter, String cursor, Integer size) {
+        int pageSize = (size == null || size < 1) ? defaultPageSize : Math.min(size, maxPageSize);
+        Long beforeId = (cursor == null || cursor.isBlank()) ? null : decodeCursor(cursor);
+        // Se pide una fila de mas para saber si hay pagina siguiente sin contar
+        List<OrderSummary> rows = repository.findSummaries(normalize(filter), beforeId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new OrderPage(rows, null, pageSize);
+        }
+        List<OrderSummary> items = rows.subList(0, pageSize);
+        return new OrderPage(List.copyOf(items), encodeCursor(items.get(pageSize - 1).getId()), pageSize);
+    }
+
+    /**
+     * Recorre todas las ordenes que cumplen el filtro en lotes keyset y entrega
+     * cada lote al consumidor. Cada lote es una consulta independiente, asi que
+     * no se mantiene una conexion abierta ni la lista completa en memoria.
+     *
+     * @param beforeId ultimo id recibido en un recorrido anterior, o null para empezar por la mas nueva
+     * @return cantidad de ordenes entregadas
+     */
+    public long export(OrderFilter filter, Long beforeId, Consumer<List<OrderSummary>> batchConsumer) {
+        OrderFilter normalized = normalize(filter);
+        long total = 0;
+        Long position = beforeId;
+        while (true) {
+            List<OrderSummary> batch = repository.findSummaries(normalized, position, exportBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            batchConsumer.accept(batch);
+            total += batch.size();
+            if (batch.size() < exportBatchSize) {
+                break;
+            }
+            position = batch.get(batch.size() - 1).getId();
+        }
+        return total;
+    }
+
+    /**
+     * Los textos vacios cuentan como filtro ausente.
+     *
+     * @throws IllegalArgumentException si el rango de fechas esta invertido
+     */
+    private static OrderFilter normalize(OrderFilter filter) {
+        OrderFilter normalized = new OrderFilter();
+        if (filter == null) {
+            return normalized;
+        }
+        normalized.setStatus(blankToNull(filter.getStatus()));
+        normalized.setCustomerName(blankToNull(filter.getCustomerName()));
+        normalized.setCreatedFrom(filter.getCreatedFrom());
+        normalized.setCreatedTo(filter.getCreatedTo());
+        if (normalized.getCreatedFrom() != null && normalized.getCreatedTo() != null
+                && !normalized.getCreatedFrom().isBefore(normalized.getCreatedTo())) {
+            throw new IllegalArgumentException("createdFrom debe ser anterior a createdTo");
+        }
+        return normalized;
+    }
+
+    private static String blankToNull(String value) {
+        return (value == null || value.isBlank()) ? null : value.trim();
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor invalido");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.proyecto.orders.service;
+
+import com.proyecto.orders.model.OutboxEvent;
+import com.proyecto.orders.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publica en SQS los eventos del outbox ({@link OutboxEvent}).
+ *
+ * - Cada ronda toma hasta batch-size eventos listos con FOR UPDATE SKIP LOCKED
+ *   y los envia con SendMessageBatch (10 por llamada).
+ * - Los publicados se borran en la misma transaccion. Si la instancia se cae
+ *   entre el envio y el commit se vuelven a enviar: la entrega es al menos una vez.
+ * - Los que fallan se reintentan con backoff exponencial, y los siguientes
+ *   eventos de la misma orden esperan detras. Despues de max-attempts
+ *   intentos quedan en estado DEAD.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repository;
+    private final OrderEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration maxBackoff;
+    private final Counter published;
+    private final Counter failures;
+    private final Counter deadLettered;
+    private final Timer relayLatency;
+
+    private volatile long backlog;
+    private volatile long dead;
+    private volatile double oldestAgeSeconds;
+
+    public OutboxRelay(OutboxEventRepository repository,
+                       OrderEventPublisher publisher,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${app.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${app.outbox.relay.max-backoff:5m}") Duration maxBackoff) {
+        this.repository = repository;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.maxBackoff = maxBackoff;
+
+        this.published = Counter.builder("orders.outbox.published")
+            .description("Eventos del outbox publicados en SQS")
+            .register(meterRegistry);
+        this.failures = Counter.builder("orders.outbox.failures")
+            .description("Envios de eventos a SQS que fallaron y se reintentaran")
+            .register(meterRegistry);
+        this.deadLettered = Counter.builder("orders.outbox.dead.lettered")
+            .description("Eventos que agotaron los reintentos y quedaron en estado DEAD")
+            .register(meterRegistry);
+        this.relayLatency = Timer.builder("orders.outbox.relay.latency")
+            .description("Tiempo desde que se guarda el evento hasta que SQS lo confirma")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("orders.outbox.backlog", this, relay -> relay.backlog)
+            .description("Eventos pendientes de publicar")
+            .register(meterRegistry);
+        Gauge.builder("orders.outbox.dead", this, relay -> relay.dead)
+            .description("Eventos en estado DEAD")
+            .register(meterRegistry);
+        Gauge.builder("orders.outbox.oldest.age", this, relay -> relay.oldestAgeSeconds)
+            .description("Antiguedad en segundos del evento pendiente mas viejo")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Drena el outbox mientras haya lotes completos listos para enviar.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:200ms}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Integer claimed;
+            do {
+                claimed = transactionTemplate.execute(status -> relayBatch());
+            } while (claimed != null && claimed == batchSize);
+        } catch (Exception e) {
+            log.warn("Error drenando el outbox de ordenes: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = repository.claimBatch(LocalDateTime.now(), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> failed = publisher.publishBatch(batch);
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> sent = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            String error = failed.get(event.getId());
+            if (error == null) {
+                sent.add(event);
+                relayLatency.record(Duration.between(event.getCreatedAt(), now));
+                continue;
+            }
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxEvent.DEAD);
+                deadLettered.increment();
+                log.error("Evento {} de la orden {} descartado tras {} intentos: {}",
+                    event.getId(), event.getAggregateId(), event.getAttempts(), error);
+            } else {
+                long backoff = Math.min(maxBackoff.toMillis(), 1000L << Math.min(event.getAttempts() - 1, 20));
+                event.setNextAttemptAt(now.plus(Duration.ofMillis(backoff)));
+                failures.increment();
+            }
+        }
+        repository.deleteAllInBatch(sent);
+        published.increment(sent.size());
+        if (!failed.isEmpty()) {
+            log.warn("{} de {} eventos no se pudieron publicar en SQS", failed.size(), batch.size());
+        }
+        return batch.size();
+    }
+
+    /**
+     * Actualiza las metricas del backlog con consultas aparte, para no hacerlas en cada ronda.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.metrics.interval:5s}")
+    public void refreshMetrics() {
+        try {
+            backlog = repository.countByStatus(OutboxEvent.PENDING);
+            dead = repository.countByStatus(OutboxEvent.DEAD);
+            LocalDateTime oldest = repository.oldestPendingCreatedAt();
+            oldestAgeSeconds = oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+        } catch (Exception e) {
+            log.debug("No se pudieron actualizar las metricas del outbox: {}", e.getMessage());
+        }
+    }
+}